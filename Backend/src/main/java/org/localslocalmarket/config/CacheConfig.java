@@ -2,10 +2,14 @@ package org.localslocalmarket.config;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Callable;
 
+import org.localslocalmarket.service.ServiceService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
@@ -28,6 +32,9 @@ public class CacheConfig {
     @Value("${llm.cache.max-size:1000}")
     private long maxSize;
 
+    @Value("${llm.cache.service-queries.max-size:5000}")
+    private long serviceQueriesMaxSize;
+
     // Categories TTL is handled via annotation in the service layer
     // @Value("${llm.cache.categories.ttl-seconds:1800}")
     // private long categoriesTtlSeconds;
@@ -44,33 +51,70 @@ public class CacheConfig {
                 .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
                 .recordStats();
         
-        CaffeineCacheManager manager = new CaffeineCacheManager();
+        CaffeineCacheManager manager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new HitRecordingCache(name, cache, isAllowNullValues());
+            }
+        };
         manager.setCaffeine(builder);
         manager.setCacheNames(List.of(
                 "shops_by_id",
                 "shops_list",
                 "all_shops",
                 "shops_paginated",
+                // Unfiltered id lists behind the openNow/openAt shop listings
+                "shop_scope_ids",
                 "products_by_id",
                 "products_list",
                 "products_by_shop",
                 "products_by_category",
                 "products_by_subcategory",
                 "categories",
-                // Service caches
-                "services_paginated",
-                "services_by_status_paginated",
-                "services_by_shop_paginated",
-                "services_by_shop_status_paginated",
-                "services_by_category_paginated",
-                "services_by_category_status_paginated",
-                "services_filtered_paginated",
-                "services_by_price_paginated",
-                "services_by_shop_price_paginated",
-                "services_by_category_price_paginated",
+                // Per-id rating summaries (batch endpoints)
+                "shop_rating_summaries",
+                "product_rating_summaries",
                 // Sitemap cache
                 "sitemap"
         ));
+        // Every service listing page and id list, keyed by ServiceQuery; sized on its own
+        // since all service listing traffic shares it
+        manager.registerCustomCache(ServiceService.QUERY_CACHE, Caffeine.newBuilder()
+                .maximumSize(serviceQueriesMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build());
         return manager;
     }
+
+    /** Marks the current request in CacheHits whenever a lookup is answered from the cache. */
+    private static final class HitRecordingCache extends CaffeineCache {
+
+        HitRecordingCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                          boolean allowNullValues) {
+            super(name, cache, allowNullValues);
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object value = super.lookup(key);
+            if (value != null) {
+                CacheHits.record();
+            }
+            return value;
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            boolean[] loaded = {false};
+            T value = super.get(key, () -> {
+                loaded[0] = true;
+                return valueLoader.call();
+            });
+            if (!loaded[0]) {
+                CacheHits.record();
+            }
+            return value;
+        }
+    }
 }
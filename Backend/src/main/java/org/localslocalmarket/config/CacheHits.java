@@ -0,0 +1,30 @@
+package org.localslocalmarket.config;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Whether the current request was answered, at least in part, from a Spring cache.
+ *
+ * The caches built by CacheConfig record every hit here. Response advices that
+ * correct cached bodies with live state (stock counts, service status) use it to
+ * leave responses that were just read from the database alone.
+ */
+public final class CacheHits {
+
+    private static final String ATTRIBUTE = CacheHits.class.getName() + ".hit";
+
+    private CacheHits() {}
+
+    static void record() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    public static boolean inCurrentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
@@ -0,0 +1,71 @@
+package org.localslocalmarket.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Product and Service moved from IDENTITY columns to pooled sequences. On a
+ * database that already has rows, ddl-auto creates the sequences starting at 1,
+ * which would hand out ids that are already taken. This moves each sequence past
+ * the current MAX(id) before the web server starts taking requests; on an aligned
+ * database it is a no-op. V10__product_service_sequences.sql does the same for
+ * schema-managed deployments.
+ */
+@Component
+public class IdSequenceAlignment {
+
+    // sequence -> table, both as created by Hibernate's naming strategy
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "product_seq", "product",
+            "services_seq", "services"
+    );
+    private static final int ALLOCATION_SIZE = 50;
+
+    private final DataSource dataSource;
+
+    // Depends on the EntityManagerFactory so ddl-auto has created the sequences first
+    public IdSequenceAlignment(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    void align() {
+        String database;
+        try (Connection connection = dataSource.getConnection()) {
+            database = connection.getMetaData().getDatabaseProductName().toLowerCase();
+        } catch (SQLException e) {
+            System.err.println("IdSequenceAlignment: Could not detect database, skipping: " + e.getMessage());
+            return;
+        }
+
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+                if (maxId == null) {
+                    return;
+                }
+                if (database.contains("postgres")) {
+                    // Pooled optimizer uses (value - allocation, value], so the sequence must be >= MAX(id)
+                    jdbc.queryForObject("SELECT CASE WHEN last_value < ? THEN setval('" + sequence + "', ?) ELSE last_value END FROM " + sequence,
+                            Long.class, maxId, maxId);
+                } else if (database.contains("sqlite")) {
+                    // No sequences: Hibernate emulates them with a one-row table holding the next value
+                    jdbc.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?",
+                            maxId + ALLOCATION_SIZE, maxId + ALLOCATION_SIZE);
+                }
+            } catch (Exception e) {
+                System.err.println("IdSequenceAlignment: Could not align " + sequence + ": " + e.getMessage());
+            }
+        });
+    }
+}
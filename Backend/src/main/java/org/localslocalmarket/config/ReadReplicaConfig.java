@@ -0,0 +1,96 @@
+package org.localslocalmarket.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Adds a replica pool next to the primary configured by spring.datasource.* and
+ * routes read-only transactions to it (see ReplicaRoutingDataSource). Only active
+ * with llm.db.replica.enabled=true; otherwise Boot's single DataSource is used.
+ *
+ * Spring Data repository reads run in read-only transactions by default, so plain
+ * findBy/count calls from GET endpoints are routed too, not just the methods marked
+ * with @Transactional(readOnly = true).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "llm.db.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    // Postgres standby: 0 when caught up (or not a standby), otherwise age of the last replayed commit
+    private static final String DEFAULT_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    @Value("${llm.db.replica.url}")
+    private String replicaUrl;
+
+    @Value("${llm.db.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${llm.db.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${llm.db.replica.pool-max:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int replicaPoolMax;
+
+    @Value("${llm.db.replica.lag-query:}")
+    private String lagQuery;
+
+    @Value("${llm.db.replica.lag-tolerance-ms:2000}")
+    private long lagToleranceMs;
+
+    @Value("${llm.db.replica.stickiness-ms:5000}")
+    private long stickinessMs;
+
+    @Value("${llm.db.replica.lag-check-interval-ms:1000}")
+    private long lagCheckIntervalMs;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setMaximumPoolSize(replicaPoolMax);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica) {
+        String query = lagQuery == null || lagQuery.isBlank() ? DEFAULT_LAG_QUERY : lagQuery;
+        return new ReplicaRoutingDataSource(primary, replica, query, lagToleranceMs, stickinessMs, lagCheckIntervalMs);
+    }
+
+    // What JPA and everything else injecting a DataSource gets
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
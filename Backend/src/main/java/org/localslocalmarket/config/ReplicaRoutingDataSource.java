@@ -0,0 +1,189 @@
+package org.localslocalmarket.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ *
+ * A read-only transaction still goes to the primary when:
+ * - the replica is further behind than the lag tolerance, or the lag probe failed;
+ * - the request is not a GET/HEAD, so write flows read what they are about to update;
+ * - the current request already opened a read-write transaction;
+ * - the same user (client address for anonymous callers) wrote within the stickiness
+ *   window, so people see their own edits straight away.
+ *
+ * Must sit behind a LazyConnectionDataSourceProxy: the read-only flag is only known
+ * once Spring has begun the transaction, after JPA has asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final String PINNED_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".PINNED";
+    // Expired stickiness entries are swept once the map grows past this
+    private static final int STICKY_SWEEP_THRESHOLD = 10_000;
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long lagToleranceMillis;
+    private final long stickinessNanos;
+    private final long lagCheckIntervalMillis;
+
+    // caller key -> System.nanoTime() until which its reads stay on the primary
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+    // Unknown until the first probe; the replica gets no traffic before that
+    private volatile long replicaLagMillis = Long.MAX_VALUE;
+    // Only touched by the lag monitor thread
+    private boolean probeFailing;
+    private ScheduledExecutorService lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, String lagQuery,
+                                    long lagToleranceMillis, long stickinessMillis, long lagCheckIntervalMillis) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagToleranceMillis = lagToleranceMillis;
+        this.stickinessNanos = TimeUnit.MILLISECONDS.toNanos(stickinessMillis);
+        this.lagCheckIntervalMillis = lagCheckIntervalMillis;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagMonitor.scheduleWithFixedDelay(this::probeLag, 0, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (lagMonitor != null) {
+            lagMonitor.shutdownNow();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        // Reads outside a transaction keep using the primary, as before
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Target.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWrite();
+            return Target.PRIMARY;
+        }
+        if (replicaLagMillis > lagToleranceMillis || pinnedToPrimary()) {
+            return Target.PRIMARY;
+        }
+        return Target.REPLICA;
+    }
+
+    public long getReplicaLagMillis() {
+        return replicaLagMillis;
+    }
+
+    private boolean pinnedToPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        if (attributes.getAttribute(PINNED_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null) {
+            return true;
+        }
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            String method = servlet.getRequest().getMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                return true;
+            }
+        }
+        String caller = callerKey(attributes);
+        if (caller == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(caller);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        stickyUntil.remove(caller, until);
+        return false;
+    }
+
+    private void recordWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(PINNED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        String caller = callerKey(attributes);
+        if (caller == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        stickyUntil.put(caller, now + stickinessNanos);
+        if (stickyUntil.size() > STICKY_SWEEP_THRESHOLD) {
+            stickyUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    private static String callerKey(RequestAttributes attributes) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && !(auth instanceof AnonymousAuthenticationToken)) {
+            return "user:" + auth.getName();
+        }
+        if (attributes instanceof ServletRequestAttributes servlet) {
+            return "addr:" + servlet.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+
+    private void probeLag() {
+        long lag;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            lag = rs.next() ? Math.max(0, Math.round(rs.getDouble(1))) : Long.MAX_VALUE;
+        } catch (SQLException | RuntimeException e) {
+            if (!probeFailing) {
+                probeFailing = true;
+                System.err.println("ReplicaRoutingDataSource: Lag probe failed, reads go to the primary: " + e.getMessage());
+            }
+            replicaLagMillis = Long.MAX_VALUE;
+            return;
+        }
+        probeFailing = false;
+        boolean wasUsable = replicaLagMillis <= lagToleranceMillis;
+        boolean usable = lag <= lagToleranceMillis;
+        if (wasUsable != usable) {
+            System.out.println("ReplicaRoutingDataSource: Replica lag " + lag + "ms, reads go to the "
+                    + (usable ? "replica" : "primary"));
+        }
+        replicaLagMillis = lag;
+    }
+}
@@ -0,0 +1,23 @@
+package org.localslocalmarket.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hooks SqlRequestStats into Hibernate so SqlQueryMetricsFilter can report the
+ * statements and JDBC time of each request.
+ */
+@Configuration
+public class SqlQueryMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlRequestStatsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SqlRequestStats.Inspector());
+            // Takes a single class name; nothing else in this app sets it
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlRequestStats.TimingListener.class.getName());
+        };
+    }
+}
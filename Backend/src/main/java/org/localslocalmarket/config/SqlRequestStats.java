@@ -0,0 +1,112 @@
+package org.localslocalmarket.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * SQL statements Hibernate ran on behalf of the current HTTP request, and the time
+ * spent executing them. SqlQueryMetricsFilter opens one per request; statements on
+ * threads without an open one (startup, async streaming) are not counted.
+ *
+ * Counts every statement Hibernate prepares, including ones served from the
+ * statement cache, so the same lazy load repeated per row shows up as a repeat.
+ */
+public final class SqlRequestStats {
+
+    private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private long executionNanos;
+    private final Map<String, Integer> countsBySql = new HashMap<>();
+
+    public static SqlRequestStats begin() {
+        SqlRequestStats stats = new SqlRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public double getExecutionMillis() {
+        return executionNanos / 1_000_000.0;
+    }
+
+    /**
+     * The statement run most often in this request, usually the tell-tale sign of an
+     * N+1: one lazy association load per row of a listing.
+     */
+    public Map.Entry<String, Integer> mostRepeated() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : countsBySql.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+
+    public int maxRepeats() {
+        Map.Entry<String, Integer> top = mostRepeated();
+        return top == null ? 0 : top.getValue();
+    }
+
+    /**
+     * Registered as hibernate.session_factory.statement_inspector; sees each SQL string
+     * right before it is prepared.
+     */
+    public static class Inspector implements StatementInspector {
+        @Override
+        public String inspect(String sql) {
+            SqlRequestStats stats = CURRENT.get();
+            if (stats != null) {
+                stats.statementCount++;
+                stats.countsBySql.merge(sql, 1, Integer::sum);
+            }
+            return sql;
+        }
+    }
+
+    /**
+     * Registered through hibernate.session.events.auto, one instance per session.
+     * Sessions are single-threaded, so the start time needs no synchronization.
+     */
+    public static class TimingListener implements org.hibernate.SessionEventListener {
+        private long startNanos;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            record();
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            record();
+        }
+
+        private void record() {
+            SqlRequestStats stats = CURRENT.get();
+            if (stats != null && startNanos != 0) {
+                stats.executionNanos += System.nanoTime() - startNanos;
+            }
+            startNanos = 0;
+        }
+    }
+}
@@ -2,13 +2,12 @@ package org.localslocalmarket.dto;
 
 import java.util.List;
 
-import org.localslocalmarket.model.Service;
-
 /**
  * DTO for paginated service responses
+ * Content is either full Service entities or lean ServiceCardResponse projections.
  */
-public class ServicePageResponse {
-    private List<Service> content;
+public class ServicePageResponse<T> {
+    private List<T> content;
     private int page;
     private int size;
     private long totalElements;
@@ -23,7 +22,7 @@ public class ServicePageResponse {
     public ServicePageResponse() {}
     
     // Constructor with all fields
-    public ServicePageResponse(List<Service> content, int page, int size, long totalElements, 
+    public ServicePageResponse(List<T> content, int page, int size, long totalElements, 
                              int totalPages, boolean first, boolean last, boolean hasNext, 
                              boolean hasPrevious, int numberOfElements) {
         this.content = content;
@@ -39,11 +38,11 @@ public class ServicePageResponse {
     }
     
     // Getters and Setters
-    public List<Service> getContent() {
+    public List<T> getContent() {
         return content;
     }
     
-    public void setContent(List<Service> content) {
+    public void setContent(List<T> content) {
         this.content = content;
     }
     
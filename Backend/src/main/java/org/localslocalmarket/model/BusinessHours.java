@@ -0,0 +1,231 @@
+package org.localslocalmarket.model;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A shop's weekly opening hours compiled to sorted, non-overlapping [start, end)
+ * intervals in minutes from Monday 00:00 local time (0 .. 10080).
+ *
+ * Compiled from Shop.businessHoursJson, read the way ShopPage.jsx reads it. The
+ * BusinessHours editor writes separate fields:
+ * {"monday": {"open": "09", "openMinute": "00", "openAMPM": "AM",
+ *             "close": "05", "closeMinute": "00", "closeAMPM": "PM", "isOpen": true}, ...}
+ * Older shops store time strings instead, either 24-hour or with AM/PM:
+ * {"monday": {"open": "09:00", "close": "17:00"}, "sunday": {"closed": true}, ...}
+ *
+ * - A close time at or before the open time runs past midnight into the next day
+ *   (Sunday wraps to Monday); equal times mean open all day.
+ * - 11:59 PM closes at midnight, which is what the editor's "24 hours" preset means.
+ * - Days that are missing, have closed=true, isOpen=false or unreadable times are closed.
+ *
+ * Stored in Shop.businessHoursIntervals as "start-end,start-end" (see encode()).
+ */
+public final class BusinessHours {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int[] NO_INTERVALS = new int[0];
+
+    // start0, end0, start1, end1, ...
+    private final int[] bounds;
+
+    private BusinessHours(int[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /** Compiles the editor JSON; null when the shop has not published hours or they cannot be read. */
+    public static BusinessHours fromJson(String json) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (Exception e) {
+            return null;
+        }
+        if (root == null || !root.isObject() || root.isEmpty()) {
+            return null;
+        }
+        List<int[]> intervals = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            JsonNode hours = root.get(day.name().toLowerCase(Locale.ROOT));
+            // The shop page treats a day as open unless closed is true or isOpen is false
+            if (hours == null || !hours.isObject() || flag(hours, "closed", true) || flag(hours, "isOpen", false)) {
+                continue;
+            }
+            int open;
+            int close;
+            if (hours.has("openMinute") && hours.has("openAMPM")) {
+                open = minuteOfDay(field(hours, "open", ""), field(hours, "openMinute", "00"), field(hours, "openAMPM", "AM"));
+                close = minuteOfDay(field(hours, "close", ""), field(hours, "closeMinute", "00"), field(hours, "closeAMPM", "PM"));
+            } else {
+                open = minuteOfDay(field(hours, "open", ""));
+                close = minuteOfDay(field(hours, "close", ""));
+            }
+            if (open < 0 || close < 0) {
+                continue;
+            }
+            if (close == MINUTES_PER_DAY - 1) {
+                close = MINUTES_PER_DAY;
+            }
+            int dayStart = (day.getValue() - 1) * MINUTES_PER_DAY;
+            int start = dayStart + open;
+            int end = dayStart + (close > open ? close : close + MINUTES_PER_DAY);
+            if (end > MINUTES_PER_WEEK) {
+                intervals.add(new int[]{start, MINUTES_PER_WEEK});
+                intervals.add(new int[]{0, end - MINUTES_PER_WEEK});
+            } else {
+                intervals.add(new int[]{start, end});
+            }
+        }
+        return new BusinessHours(merge(intervals));
+    }
+
+    /** Reads the stored encode() form; null for null/blank input. */
+    public static BusinessHours decode(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+        if (encoded.equals("-")) {
+            return new BusinessHours(NO_INTERVALS);
+        }
+        List<int[]> intervals = new ArrayList<>();
+        for (String part : encoded.split(",")) {
+            int dash = part.indexOf('-');
+            intervals.add(new int[]{Integer.parseInt(part.substring(0, dash)), Integer.parseInt(part.substring(dash + 1))});
+        }
+        return new BusinessHours(merge(intervals));
+    }
+
+    /** "start-end,start-end", or "-" for published hours that are closed all week. */
+    public String encode() {
+        if (bounds.length == 0) {
+            return "-";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(bounds[i]).append('-').append(bounds[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    public boolean isOpenAt(int minuteOfWeek) {
+        // Index of the last interval starting at or before the minute
+        int lo = 0;
+        int hi = bounds.length / 2 - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (bounds[2 * mid] <= minuteOfWeek) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found >= 0 && minuteOfWeek < bounds[2 * found + 1];
+    }
+
+    /** Number of [start, end) intervals; interval i spans start(i) .. end(i). */
+    public int intervalCount() {
+        return bounds.length / 2;
+    }
+
+    public int start(int i) {
+        return bounds[2 * i];
+    }
+
+    public int end(int i) {
+        return bounds[2 * i + 1];
+    }
+
+    public static int minuteOfWeek(Instant at, ZoneId zone) {
+        ZonedDateTime local = at.atZone(zone);
+        return (local.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + local.getHour() * 60 + local.getMinute();
+    }
+
+    // 12-hour clock fields -> minute of day, or -1 when unreadable
+    private static int minuteOfDay(String hour, String minute, String amPm) {
+        try {
+            int h = Integer.parseInt(hour.trim());
+            int m = Integer.parseInt(minute.trim());
+            if (h < 1 || h > 12 || m < 0 || m > 59) {
+                return -1;
+            }
+            boolean pm = "PM".equalsIgnoreCase(amPm.trim());
+            if (!pm && !"AM".equalsIgnoreCase(amPm.trim())) {
+                return -1;
+            }
+            return ((h % 12) + (pm ? 12 : 0)) * 60 + m;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // "09:00" (24-hour) or "9:00 AM" -> minute of day, or -1 when unreadable
+    private static int minuteOfDay(String time) {
+        String[] parts = time.trim().split("\\s+");
+        int colon = parts[0].indexOf(':');
+        if (parts.length > 2 || colon < 0) {
+            return -1;
+        }
+        String hour = parts[0].substring(0, colon);
+        String minute = parts[0].substring(colon + 1);
+        if (parts.length == 2) {
+            return minuteOfDay(hour, minute, parts[1]);
+        }
+        try {
+            int h = Integer.parseInt(hour);
+            int m = Integer.parseInt(minute);
+            return h < 0 || h > 23 || m < 0 || m > 59 ? -1 : h * 60 + m;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Whether the field holds exactly this JSON boolean (the shop page compares with ===)
+    private static boolean flag(JsonNode hours, String name, boolean value) {
+        JsonNode node = hours.path(name);
+        return node.isBoolean() && node.booleanValue() == value;
+    }
+
+    // Text of a field, or the fallback when it is missing, null or empty
+    private static String field(JsonNode hours, String name, String fallback) {
+        String text = hours.path(name).asText("");
+        return text.isEmpty() ? fallback : text;
+    }
+
+    private static int[] merge(List<int[]> intervals) {
+        if (intervals.isEmpty()) {
+            return NO_INTERVALS;
+        }
+        intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] merged = new int[intervals.size() * 2];
+        int n = 0;
+        for (int[] interval : intervals) {
+            if (n > 0 && interval[0] <= merged[n - 1]) {
+                merged[n - 1] = Math.max(merged[n - 1], interval[1]);
+            } else {
+                merged[n++] = interval[0];
+                merged[n++] = interval[1];
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+}
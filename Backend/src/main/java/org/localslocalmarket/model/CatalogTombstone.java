@@ -0,0 +1,65 @@
+package org.localslocalmarket.model;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+/**
+ * Record of a hard-deleted shop, product or service, kept so delta-sync
+ * clients can drop rows that no longer exist. Deactivations need no tombstone:
+ * the row itself is still there with a fresh updatedAt and isActive = false.
+ */
+@Entity
+@Table(name = "catalog_tombstones", indexes = {
+    @Index(name = "idx_catalog_tombstones_removed_at", columnList = "removed_at")
+})
+public class CatalogTombstone {
+    public enum EntityType { SHOP, PRODUCT, SERVICE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    @Column(name = "removed_at", nullable = false, updatable = false)
+    private Instant removedAt;
+
+    public CatalogTombstone() {}
+
+    public CatalogTombstone(EntityType entityType, Long entityId, Long shopId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.shopId = shopId;
+    }
+
+    public Long getId() { return id; }
+    public EntityType getEntityType() { return entityType; }
+    public Long getEntityId() { return entityId; }
+    public Long getShopId() { return shopId; }
+    public Instant getRemovedAt() { return removedAt; }
+
+    @PrePersist
+    void prePersist(){
+        if(removedAt==null){
+            removedAt = Instant.now();
+        }
+    }
+}
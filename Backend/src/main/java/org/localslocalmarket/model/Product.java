@@ -3,6 +3,9 @@ package org.localslocalmarket.model;
 import java.math.BigDecimal;
 import java.time.Instant;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -12,9 +15,13 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@DynamicUpdate // only changed columns are written, so edits never rewrite a concurrently decremented stock_count
 @Table(indexes = {
     @Index(name = "idx_product_is_active", columnList = "isActive"),
     @Index(name = "idx_product_shop_active", columnList = "shop_id,isActive"),
@@ -22,11 +29,15 @@ import jakarta.persistence.Table;
     @Index(name = "idx_product_main_sub_active", columnList = "mainCategory,subcategory,isActive"),
     @Index(name = "idx_product_price", columnList = "price"),
     @Index(name = "idx_product_title", columnList = "title"),
-    @Index(name = "idx_product_created_at", columnList = "createdAt")
+    @Index(name = "idx_product_created_at", columnList = "createdAt"),
+    @Index(name = "idx_product_updated_at", columnList = "updatedAt")
 })
 public class Product {
+    // Pooled sequence (50 ids per round trip) so JDBC insert batching applies;
+    // IDENTITY would force one INSERT + key read per row. SQLite emulates it with a table.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -61,6 +72,15 @@ public class Product {
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Bumped on every write; drives the /api/shops/changes delta feed
+    private Instant updatedAt;
+
+    // Optimistic lock: updates run as UPDATE ... WHERE version = ?, a stale write gets 409
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     public Product() {}
 
     public Long getId() {
@@ -79,8 +99,11 @@ public class Product {
     public String getCustomCategory() { return customCategory; }
     public Boolean getIsActive() { return isActive; }
     public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
 
     public void setShop(Shop shop) { this.shop = shop; }
+    public void setVersion(Long version) { this.version = version; }
     public void setTitle(String title) { this.title = title; }
     public void setDescription(String description) { this.description = description; }
     public void setPrice(java.math.BigDecimal price) { this.price = price; }
@@ -97,6 +120,7 @@ public class Product {
         if(createdAt==null){
             createdAt = Instant.now();
         }
+        updatedAt = createdAt;
         if(isActive==null){
             isActive = true;
         }
@@ -104,4 +128,9 @@ public class Product {
             stockCount = 0;
         }
     }
+
+    @PreUpdate
+    void preUpdate(){
+        updatedAt = Instant.now();
+    }
 }
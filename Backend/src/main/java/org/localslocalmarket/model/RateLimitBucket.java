@@ -0,0 +1,34 @@
+package org.localslocalmarket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * One rate-limit key shared by all instances. The row is only a GCRA theoretical
+ * arrival time; once that has passed the key is back to a full budget and the row can
+ * be pruned. Mapped so ddl-auto creates the table: DatabaseRateLimitLedger reads and
+ * writes it with JDBC on the primary pool, and makes it UNLOGGED on Postgres.
+ */
+@Entity
+@Table(name = "rate_limit_buckets", indexes = {
+    @Index(name = "idx_rate_limit_buckets_tat", columnList = "tat_micros")
+})
+public class RateLimitBucket {
+
+    @Id
+    @Column(name = "bucket_key", length = 200)
+    private String bucketKey;
+
+    // Epoch microseconds
+    @Column(name = "tat_micros", nullable = false)
+    private long tatMicros;
+
+    public RateLimitBucket() {}
+
+    public String getBucketKey() { return bucketKey; }
+    public long getTatMicros() { return tatMicros; }
+    public void setTatMicros(long tatMicros) { this.tatMicros = tatMicros; }
+}
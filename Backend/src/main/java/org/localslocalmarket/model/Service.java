@@ -3,6 +3,9 @@ package org.localslocalmarket.model;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
@@ -18,18 +21,27 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@DynamicUpdate // status toggles write the column directly; edits must not rewrite it from a stale read
 @Table(name = "services", indexes = {
     @Index(name = "idx_services_shop_id", columnList = "shop_id"),
     @Index(name = "idx_services_category", columnList = "main_category"),
     @Index(name = "idx_services_status", columnList = "status"),
-    @Index(name = "idx_services_active", columnList = "is_active")
+    @Index(name = "idx_services_active", columnList = "is_active"),
+    @Index(name = "idx_services_updated_at", columnList = "updated_at"),
+    // Category grids filtered by availability, and a shop's active services (ServiceQueryRepositoryImpl)
+    @Index(name = "idx_services_active_category_status", columnList = "is_active, main_category, status"),
+    @Index(name = "idx_services_shop_active", columnList = "shop_id, is_active")
 })
 public class Service {
+    // Pooled sequence for batched inserts (see Product)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "services_seq")
+    @SequenceGenerator(name = "services_seq", sequenceName = "services_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -64,6 +76,12 @@ public class Service {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
     
+    // Optimistic lock (see Product); status toggles bypass it via ServiceRepository.updateStatus
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -78,6 +96,26 @@ public class Service {
     // Default constructor
     public Service() {}
     
+    /** Copy with a different status, for responses built from shared (cached) instances. */
+    public Service withStatus(ServiceStatus status) {
+        Service copy = new Service();
+        copy.id = id;
+        copy.shop = shop;
+        copy.title = title;
+        copy.description = description;
+        copy.imageUrl = imageUrl;
+        copy.price = price;
+        copy.mainCategory = mainCategory;
+        copy.subcategory = subcategory;
+        copy.customCategory = customCategory;
+        copy.status = status;
+        copy.isActive = isActive;
+        copy.createdAt = createdAt;
+        copy.updatedAt = updatedAt;
+        copy.version = version;
+        return copy;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -179,6 +217,14 @@ public class Service {
         return updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
@@ -4,6 +4,11 @@ import java.time.Instant;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -13,13 +18,18 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "shop")
 @Table(indexes = {
     @Index(name = "idx_shop_owner", columnList = "owner_id"),
     @Index(name = "idx_shop_category", columnList = "category"),
-    @Index(name = "idx_shop_created_at", columnList = "createdAt")
+    @Index(name = "idx_shop_created_at", columnList = "createdAt"),
+    @Index(name = "idx_shop_updated_at", columnList = "updatedAt")
 })
 public class Shop {
     @Id
@@ -66,9 +76,26 @@ public class Shop {
     @Column(columnDefinition = "TEXT")
     private String businessHoursJson;
 
+    // businessHoursJson compiled on write (BusinessHours.encode()); read by ShopHoursIndex
+    @Column(length = 1000)
+    private String businessHoursIntervals;
+
+    // IANA zone the business hours are in; null means llm.shops.default-time-zone
+    @Column(length = 64)
+    private String timeZone;
+
     @Column(nullable = false, updatable = false)
     private Instant createdAt;
 
+    // Bumped on every write; drives the /api/shops/changes delta feed
+    private Instant updatedAt;
+
+    // Optimistic lock (see Product)
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     @Column(name = "is_active", nullable = false)
     private Boolean isActive;
 
@@ -149,11 +176,22 @@ public class Shop {
     public Boolean getAdsEnabled() { return adsEnabled; }
 
     public String getBusinessHoursJson() { return businessHoursJson; }
+    @JsonIgnore
+    public String getBusinessHoursIntervals() { return businessHoursIntervals; }
+    public String getTimeZone() { return timeZone; }
 
     public Instant getCreatedAt() {
         return createdAt;
     }
 
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getVersion() { return version; }
+
+    public void setVersion(Long version) { this.version = version; }
+
     public Boolean getIsActive() { return isActive != null ? isActive : true; }
 
     public String getOfferingType() { return offeringType; }
@@ -178,6 +216,7 @@ public class Shop {
     public void setAdsImagePathsJson(String adsImagePathsJson) { this.adsImagePathsJson = adsImagePathsJson; }
     public void setAdsEnabled(Boolean adsEnabled) { this.adsEnabled = adsEnabled; }
     public void setBusinessHoursJson(String businessHoursJson) { this.businessHoursJson = businessHoursJson; }
+    public void setTimeZone(String timeZone) { this.timeZone = timeZone; }
     public void setIsActive(Boolean active) { this.isActive = active; }
     public void setOfferingType(String offeringType) { this.offeringType = offeringType; }
     public void setShowcasePriority(String showcasePriority) { this.showcasePriority = showcasePriority; }
@@ -187,6 +226,7 @@ public class Shop {
         if(createdAt==null){
             createdAt = Instant.now();
         }
+        updatedAt = createdAt;
         if(adsEnabled==null){
             adsEnabled = false;
         }
@@ -199,5 +239,17 @@ public class Shop {
         if(showcasePriority == null){
             showcasePriority = "products";
         }
+        compileBusinessHours();
+    }
+
+    @PreUpdate
+    void preUpdate(){
+        updatedAt = Instant.now();
+        compileBusinessHours();
+    }
+
+    private void compileBusinessHours(){
+        BusinessHours hours = BusinessHours.fromJson(businessHoursJson);
+        businessHoursIntervals = hours != null ? hours.encode() : null;
     }
 }
@@ -0,0 +1,47 @@
+package org.localslocalmarket.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Running count and star sum per shop for both review sources, so listings can
+ * show an average without aggregating shop_ratings and unauthenticated_shop_reviews.
+ * Maintained incrementally by ShopRatingAggregateService.
+ */
+@Entity
+@Table(name = "shop_rating_aggregate")
+public class ShopRatingAggregate {
+    @Id
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    @Column(nullable = false)
+    private Long authCount = 0L;
+
+    @Column(nullable = false)
+    private Long authSum = 0L;
+
+    @Column(nullable = false)
+    private Long unauthCount = 0L;
+
+    @Column(nullable = false)
+    private Long unauthSum = 0L;
+
+    public ShopRatingAggregate() {}
+
+    public ShopRatingAggregate(Long shopId, long authCount, long authSum, long unauthCount, long unauthSum) {
+        this.shopId = shopId;
+        this.authCount = authCount;
+        this.authSum = authSum;
+        this.unauthCount = unauthCount;
+        this.unauthSum = unauthSum;
+    }
+
+    public Long getShopId() { return shopId; }
+    public Long getAuthCount() { return authCount; }
+    public Long getAuthSum() { return authSum; }
+    public Long getUnauthCount() { return unauthCount; }
+    public Long getUnauthSum() { return unauthSum; }
+}
@@ -0,0 +1,21 @@
+package org.localslocalmarket.repo;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.localslocalmarket.model.CatalogTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CatalogTombstoneRepository extends JpaRepository<CatalogTombstone, Long> {
+    List<CatalogTombstone> findByRemovedAtAfterOrderByRemovedAtAsc(Instant since, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CatalogTombstone t WHERE t.removedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") Instant cutoff);
+}
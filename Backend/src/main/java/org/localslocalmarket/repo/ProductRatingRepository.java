@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRatingRepository extends JpaRepository<ProductRating, Long> {
@@ -16,4 +18,9 @@ public interface ProductRatingRepository extends JpaRepository<ProductRating, Lo
 
     @Query("SELECT AVG(r.stars) FROM ProductRating r WHERE r.product.id = :productId")
     Double averageStarsByProduct(@Param("productId") Long productId);
+
+    // [productId, count, sum] for each rated product in the list
+    @Query("SELECT r.product.id, COUNT(r), SUM(r.stars) FROM ProductRating r " +
+           "WHERE r.product.id IN :productIds GROUP BY r.product.id")
+    List<Object[]> countAndSumGroupedByProduct(@Param("productIds") Collection<Long> productIds);
 }
@@ -3,13 +3,20 @@ package org.localslocalmarket.repo;
 import java.time.Instant;
 
 import org.localslocalmarket.model.Product;
+import org.localslocalmarket.web.dto.ProductDtos;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop WHERE p.isActive = true")
@@ -20,14 +27,71 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop s LEFT JOIN FETCH s.owner WHERE p.id = :productId")
     java.util.Optional<Product> findByIdWithShopAndOwner(@Param("productId") Long productId);
+
+    // Fetch plans for callers that read Product.shop after the repository call has returned
+    // (open-in-view is off, so the shop must be loaded by the query itself)
+    @EntityGraph(attributePaths = "shop")
+    java.util.Optional<Product> findWithShopById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "shop")
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    // Conditional decrement in a single statement: concurrent buyers cannot both pass the stock check
+    @Modifying
+    @Query("UPDATE Product p SET p.stockCount = p.stockCount - :amount, p.updatedAt = :now " +
+           "WHERE p.id = :productId AND p.stockCount >= :amount")
+    int decrementStockIfAvailable(@Param("productId") Long productId,
+                                  @Param("amount") int amount,
+                                  @Param("now") Instant now);
+
+    // Owner stock edits: like a decrement, leaves the version alone (stock is served through the overlay)
+    @Modifying
+    @Query("UPDATE Product p SET p.stockCount = :stockCount, p.updatedAt = :now " +
+           "WHERE p.id = :productId AND (:version IS NULL OR p.version = :version)")
+    int setStockCount(@Param("productId") Long productId,
+                      @Param("stockCount") int stockCount,
+                      @Param("version") Long version,
+                      @Param("now") Instant now);
+
+    @Query("SELECT p.stockCount FROM Product p WHERE p.id = :productId")
+    java.util.Optional<Integer> findStockCountById(@Param("productId") Long productId);
+
+    @Query("SELECT p.id, p.stockCount FROM Product p WHERE p.id IN :ids")
+    java.util.List<Object[]> findStockCountsByIdIn(@Param("ids") java.util.List<Long> ids);
     
-    // New category-based queries
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop WHERE p.isActive = true AND p.mainCategory = :mainCategory")
-    Page<Product> findAllActiveByMainCategory(@Param("mainCategory") String mainCategory, Pageable pageable);
-    
-    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.shop WHERE p.isActive = true AND p.mainCategory = :mainCategory AND p.subcategory = :subcategory")
-    Page<Product> findAllActiveByMainCategoryAndSubcategory(@Param("mainCategory") String mainCategory, @Param("subcategory") String subcategory, Pageable pageable);
+    // Category-based card projections for category grids (no description TEXT, no shop entity hydration)
+    String PRODUCT_CARD_SELECT = "SELECT new org.localslocalmarket.web.dto.ProductDtos$ProductCardResponse(" +
+           "p.id, p.title, SUBSTRING(p.description, 1, 160), p.price, p.stockCount, p.imagePathsJson, " +
+           "p.mainCategory, p.subcategory, p.customCategory, p.isActive, p.createdAt, s.id, s.name) " +
+           "FROM Product p JOIN p.shop s ";
+
+    @Query(value = PRODUCT_CARD_SELECT + "WHERE p.isActive = true AND p.mainCategory = :mainCategory",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.mainCategory = :mainCategory")
+    Page<ProductDtos.ProductCardResponse> findActiveCardsByMainCategory(@Param("mainCategory") String mainCategory, Pageable pageable);
+
+    @Query(value = PRODUCT_CARD_SELECT + "WHERE p.isActive = true AND p.mainCategory = :mainCategory AND p.subcategory = :subcategory",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.mainCategory = :mainCategory AND p.subcategory = :subcategory")
+    Page<ProductDtos.ProductCardResponse> findActiveCardsByMainCategoryAndSubcategory(@Param("mainCategory") String mainCategory, @Param("subcategory") String subcategory, Pageable pageable);
     
+    // Delta feed: active products written after :since, plus ids of those deactivated since
+    @Query(PRODUCT_CARD_SELECT + "WHERE p.isActive = true AND p.updatedAt > :since ORDER BY p.updatedAt")
+    java.util.List<ProductDtos.ProductCardResponse> findActiveCardsChangedSince(@Param("since") Instant since, Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = false AND p.updatedAt > :since")
+    java.util.List<Long> findDeactivatedIdsSince(@Param("since") Instant since);
+
+    // Owner catalog export; consume inside a read-only transaction and close the stream
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.localslocalmarket.web.dto.ProductDtos$ProductExportRow(" +
+           "p.id, p.title, p.description, p.price, p.stockCount, p.imagePathsJson, " +
+           "p.category, p.mainCategory, p.subcategory, p.customCategory, p.isActive) " +
+           "FROM Product p WHERE p.shop.id = :shopId ORDER BY p.id")
+    java.util.stream.Stream<ProductDtos.ProductExportRow> streamExportRowsByShopId(@Param("shopId") Long shopId);
+
     @Query("SELECT DISTINCT p.mainCategory FROM Product p WHERE p.isActive = true AND p.mainCategory IS NOT NULL")
     java.util.List<String> findAllDistinctMainCategories();
     
@@ -41,10 +105,18 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     
     long countByCreatedAtAfter(Instant date);
     
+    // Admin product listings serialize the whole entity, shop included
+    @EntityGraph(attributePaths = "shop")
+    @Query("SELECT p FROM Product p")
+    Page<Product> findAllWithShop(Pageable pageable);
+
+    @EntityGraph(attributePaths = "shop")
     Page<Product> findByStockCountLessThanEqual(int stockCount, Pageable pageable);
     
+    @EntityGraph(attributePaths = "shop")
     Page<Product> findByStockCount(int stockCount, Pageable pageable);
     
     // Admin search
+    @EntityGraph(attributePaths = "shop")
     Page<Product> findByTitleContainingIgnoreCase(String title, Pageable pageable);
 }
@@ -0,0 +1,34 @@
+package org.localslocalmarket.repo;
+
+import org.localslocalmarket.model.ShopRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ShopRatingAggregateRepository extends JpaRepository<ShopRatingAggregate, Long> {
+
+    // Insert-or-increment in one statement, so concurrent ratings never lose or repeat a delta.
+    // Callers run it inside the transaction that saves the rating.
+    @Modifying
+    @Query(value = "INSERT INTO shop_rating_aggregate (shop_id, auth_count, auth_sum, unauth_count, unauth_sum) " +
+                   "VALUES (:shopId, :countDelta, :sumDelta, 0, 0) " +
+                   "ON CONFLICT (shop_id) DO UPDATE SET " +
+                   "auth_count = shop_rating_aggregate.auth_count + EXCLUDED.auth_count, " +
+                   "auth_sum = shop_rating_aggregate.auth_sum + EXCLUDED.auth_sum",
+           nativeQuery = true)
+    int upsertAuthenticated(@Param("shopId") Long shopId,
+                            @Param("countDelta") long countDelta,
+                            @Param("sumDelta") long sumDelta);
+
+    @Modifying
+    @Query(value = "INSERT INTO shop_rating_aggregate (shop_id, auth_count, auth_sum, unauth_count, unauth_sum) " +
+                   "VALUES (:shopId, 0, 0, :countDelta, :sumDelta) " +
+                   "ON CONFLICT (shop_id) DO UPDATE SET " +
+                   "unauth_count = shop_rating_aggregate.unauth_count + EXCLUDED.unauth_count, " +
+                   "unauth_sum = shop_rating_aggregate.unauth_sum + EXCLUDED.unauth_sum",
+           nativeQuery = true)
+    int upsertUnauthenticated(@Param("shopId") Long shopId,
+                              @Param("countDelta") long countDelta,
+                              @Param("sumDelta") long sumDelta);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface ShopRatingRepository extends JpaRepository<ShopRating, Long> {
@@ -16,4 +17,8 @@ public interface ShopRatingRepository extends JpaRepository<ShopRating, Long> {
 
     @Query("SELECT AVG(r.stars) FROM ShopRating r WHERE r.shop.id = :shopId")
     Double averageStarsByShop(@Param("shopId") Long shopId);
+
+    // [shopId, count, sum] per shop, for rebuilding shop_rating_aggregate
+    @Query("SELECT r.shop.id, COUNT(r), SUM(r.stars) FROM ShopRating r GROUP BY r.shop.id")
+    List<Object[]> countAndSumGroupedByShop();
 }
\ No newline at end of file
@@ -1,17 +1,24 @@
 package org.localslocalmarket.repo;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.localslocalmarket.model.Shop;
 import org.localslocalmarket.model.User;
+import org.localslocalmarket.web.dto.ShopDtos;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+
 public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificationExecutor<Shop> {
     List<Shop> findByOwner(User owner);
     Optional<Shop> findByNameIgnoreCase(String name);
@@ -30,4 +37,92 @@ public interface ShopRepository extends JpaRepository<Shop, Long>, JpaSpecificat
            "LOWER(s.description) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
            "LOWER(s.category) LIKE LOWER(CONCAT('%', :q, '%'))) ")
     Page<Shop> suggestShops(@Param("q") String q, Pageable pageable);
+
+    /**
+     * Card projections for listing and landing grids.
+     * Only the columns a card renders are selected; see ShopDtos.ShopCardResponse.
+     */
+    String SHOP_CARD_SELECT = "SELECT new org.localslocalmarket.web.dto.ShopDtos$ShopCardResponse(" +
+           "s.id, s.name, SUBSTRING(s.description, 1, 160), s.category, s.addressLine, s.lat, s.lng, " +
+           "s.logoPath, s.coverPath, s.createdAt, s.owner.id, s.isActive, s.offeringType, s.showcasePriority) " +
+           "FROM Shop s ";
+
+    // Same card columns plus combined review totals; shops with no reviews have no aggregate row
+    @Query(value = "SELECT new org.localslocalmarket.web.dto.ShopDtos$ShopResponseWithRatings(" +
+           "s.id, s.name, SUBSTRING(s.description, 1, 160), s.category, s.addressLine, s.lat, s.lng, " +
+           "s.logoPath, s.coverPath, s.createdAt, s.owner.id, s.isActive, s.offeringType, s.showcasePriority, " +
+           "COALESCE(a.authCount + a.unauthCount, 0L), COALESCE(a.authSum + a.unauthSum, 0L)) " +
+           "FROM Shop s LEFT JOIN ShopRatingAggregate a ON a.shopId = s.id",
+           countQuery = "SELECT COUNT(s) FROM Shop s")
+    Page<ShopDtos.ShopResponseWithRatings> findCardsWithRatings(Pageable pageable);
+
+    String SHOP_SEARCH_PREDICATE = "(LOWER(s.name) LIKE :like OR LOWER(s.description) LIKE :like OR " +
+           "LOWER(s.addressLine) LIKE :like OR LOWER(s.category) LIKE :like) ";
+
+    @Query(value = SHOP_CARD_SELECT,
+           countQuery = "SELECT COUNT(s) FROM Shop s")
+    Page<ShopDtos.ShopCardResponse> findCards(Pageable pageable);
+
+    @Query(value = SHOP_CARD_SELECT + "WHERE s.category = :category",
+           countQuery = "SELECT COUNT(s) FROM Shop s WHERE s.category = :category")
+    Page<ShopDtos.ShopCardResponse> findCardsByCategory(@Param("category") String category, Pageable pageable);
+
+    @Query(value = SHOP_CARD_SELECT + "WHERE " + SHOP_SEARCH_PREDICATE,
+           countQuery = "SELECT COUNT(s) FROM Shop s WHERE " + SHOP_SEARCH_PREDICATE)
+    Page<ShopDtos.ShopCardResponse> searchCards(@Param("like") String like, Pageable pageable);
+
+    @Query(value = SHOP_CARD_SELECT + "WHERE s.category = :category AND " + SHOP_SEARCH_PREDICATE,
+           countQuery = "SELECT COUNT(s) FROM Shop s WHERE s.category = :category AND " + SHOP_SEARCH_PREDICATE)
+    Page<ShopDtos.ShopCardResponse> searchCardsByCategory(@Param("like") String like,
+                                                          @Param("category") String category,
+                                                          Pageable pageable);
+
+    /**
+     * Ids in listing order for the openNow/openAt filter, which is applied in memory
+     * by ShopHoursIndex; the matching page is then loaded with findCardsByIdIn.
+     */
+    @Query("SELECT s.id FROM Shop s ORDER BY s.id")
+    List<Long> findIdsOrderById();
+
+    @Query("SELECT s.id FROM Shop s WHERE s.category = :category ORDER BY s.id")
+    List<Long> findIdsByCategory(@Param("category") String category);
+
+    @Query("SELECT s.id FROM Shop s WHERE " + SHOP_SEARCH_PREDICATE + "ORDER BY s.id")
+    List<Long> searchIds(@Param("like") String like);
+
+    @Query("SELECT s.id FROM Shop s WHERE s.category = :category AND " + SHOP_SEARCH_PREDICATE + "ORDER BY s.id")
+    List<Long> searchIdsByCategory(@Param("like") String like, @Param("category") String category);
+
+    @Query(SHOP_CARD_SELECT + "WHERE s.id IN :ids")
+    List<ShopDtos.ShopCardResponse> findCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * [id, timeZone, businessHoursIntervals, businessHoursJson] rows for ShopHoursIndex.
+     */
+    @Query("SELECT s.id, s.timeZone, s.businessHoursIntervals, s.businessHoursJson FROM Shop s WHERE s.id IN :ids")
+    List<Object[]> findHoursByIdIn(@Param("ids") Collection<Long> ids);
+
+    String SHOP_RESPONSE_SELECT = "SELECT new org.localslocalmarket.web.dto.ShopDtos$ShopResponse(" +
+           "s.id, s.name, s.description, s.category, s.addressLine, s.lat, s.lng, s.logoPath, s.coverPath, " +
+           "s.phone, s.website, s.email, s.facebook, s.instagram, s.twitter, s.adsImagePathsJson, s.adsEnabled, " +
+           "s.businessHoursJson, s.timeZone, s.createdAt, s.owner.id, s.isActive, s.offeringType, s.showcasePriority, s.version) " +
+           "FROM Shop s ";
+
+    /**
+     * Full shop rows for the /api/shops/all export, read as a forward-only cursor.
+     * Must be consumed inside a (read-only) transaction and closed by the caller;
+     * rows are DTOs, so nothing accumulates in the persistence context.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "200"),
+            @QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SHOP_RESPONSE_SELECT + "ORDER BY s.id")
+    Stream<ShopDtos.ShopResponse> streamAllShopResponses();
+
+    /**
+     * Shops written after the given instant, oldest change first, for the delta feed.
+     */
+    @Query(SHOP_RESPONSE_SELECT + "WHERE s.updatedAt > :since ORDER BY s.updatedAt")
+    List<ShopDtos.ShopResponse> findChangedSince(@Param("since") Instant since, Pageable pageable);
 }
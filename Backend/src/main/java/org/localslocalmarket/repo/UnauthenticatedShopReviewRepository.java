@@ -15,4 +15,8 @@ public interface UnauthenticatedShopReviewRepository extends JpaRepository<Unaut
 
     @Query("SELECT AVG(r.stars) FROM UnauthenticatedShopReview r WHERE r.shop.id = :shopId")
     Double averageStarsByShopId(@Param("shopId") Long shopId);
+
+    // [shopId, count, sum] per shop, for rebuilding shop_rating_aggregate
+    @Query("SELECT r.shop.id, COUNT(r), SUM(r.stars) FROM UnauthenticatedShopReview r GROUP BY r.shop.id")
+    List<Object[]> countAndSumGroupedByShop();
 }
@@ -0,0 +1,26 @@
+package org.localslocalmarket.repository;
+
+import java.util.List;
+
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.service.ServiceQuery;
+import org.localslocalmarket.web.dto.ServiceDtos;
+import org.springframework.data.domain.Page;
+
+/**
+ * ServiceQuery listings, built with the Criteria API so each statement carries only
+ * the predicates the query actually sets (see ServiceQueryRepositoryImpl). All of
+ * them are limited to active services.
+ */
+public interface ServiceQueryRepository {
+
+    Page<Service> findServices(ServiceQuery query);
+
+    Page<ServiceDtos.ServiceCardResponse> findCards(ServiceQuery query);
+
+    /** Ids of every match in the query's sort order; paging is ignored. */
+    List<Long> findIds(ServiceQuery query);
+
+    /** Up to limit cards with id > afterId in id order; the query's sort and paging are ignored. */
+    List<ServiceDtos.ServiceCardResponse> findCardsAfter(Long afterId, ServiceQuery query, int limit);
+}
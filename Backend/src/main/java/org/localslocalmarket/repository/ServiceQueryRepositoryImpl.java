@@ -0,0 +1,135 @@
+package org.localslocalmarket.repository;
+
+import java.util.List;
+
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.service.ServiceQuery;
+import org.localslocalmarket.web.dto.ServiceDtos;
+import org.springframework.data.domain.Page;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+
+/**
+ * Unlike a single "(:x IS NULL OR s.x = :x)" statement, every combination of
+ * criteria gets its own SQL with only its own predicates, so the planner can pick
+ * idx_services_active_category_status, idx_services_shop_active and friends
+ * (checked by ServiceQueryPlanTest).
+ *
+ * Read-only like the derived queries, so these reads can go to the replica too.
+ */
+@Transactional(readOnly = true)
+public class ServiceQueryRepositoryImpl implements ServiceQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Service> findServices(ServiceQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Service> cq = cb.createQuery(Service.class);
+        Root<Service> root = cq.from(Service.class);
+        cq.select(root).where(matching(query).toPredicate(root, cq, cb));
+        cq.orderBy(QueryUtils.toOrders(query.sort(), root, cb));
+        List<Service> content = entityManager.createQuery(cq)
+                .setFirstResult((int) query.pageable().getOffset())
+                .setMaxResults(query.size())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, query.pageable(), () -> count(query));
+    }
+
+    @Override
+    public Page<ServiceDtos.ServiceCardResponse> findCards(ServiceQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ServiceDtos.ServiceCardResponse> cq = cb.createQuery(ServiceDtos.ServiceCardResponse.class);
+        Root<Service> root = cq.from(Service.class);
+        cq.select(card(root, cb)).where(matching(query).toPredicate(root, cq, cb));
+        cq.orderBy(QueryUtils.toOrders(query.sort(), root, cb));
+        List<ServiceDtos.ServiceCardResponse> content = entityManager.createQuery(cq)
+                .setFirstResult((int) query.pageable().getOffset())
+                .setMaxResults(query.size())
+                .getResultList();
+        return PageableExecutionUtils.getPage(content, query.pageable(), () -> count(query));
+    }
+
+    @Override
+    public List<Long> findIds(ServiceQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Service> root = cq.from(Service.class);
+        cq.select(root.<Long>get("id")).where(matching(query).toPredicate(root, cq, cb));
+        cq.orderBy(QueryUtils.toOrders(query.sort(), root, cb));
+        return entityManager.createQuery(cq).getResultList();
+    }
+
+    @Override
+    public List<ServiceDtos.ServiceCardResponse> findCardsAfter(Long afterId, ServiceQuery query, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ServiceDtos.ServiceCardResponse> cq = cb.createQuery(ServiceDtos.ServiceCardResponse.class);
+        Root<Service> root = cq.from(Service.class);
+        Specification<Service> spec = matching(query);
+        if (afterId != null) {
+            spec = spec.and((r, q, b) -> b.gt(r.<Long>get("id"), afterId));
+        }
+        cq.select(card(root, cb)).where(spec.toPredicate(root, cq, cb));
+        cq.orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(cq).setMaxResults(limit).getResultList();
+    }
+
+    private long count(ServiceQuery query) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Service> root = cq.from(Service.class);
+        cq.select(cb.count(root)).where(matching(query).toPredicate(root, cq, cb));
+        return entityManager.createQuery(cq).getSingleResult();
+    }
+
+    /** Active services plus one predicate per criterion the query sets. */
+    static Specification<Service> matching(ServiceQuery query) {
+        // An equality (not a bare boolean) so is_active can lead the composite indexes
+        Specification<Service> spec = (root, cq, cb) -> cb.equal(root.get("isActive"), true);
+        if (query.shopId() != null) {
+            spec = spec.and((root, cq, cb) -> cb.equal(root.get("shop").get("id"), query.shopId()));
+        }
+        if (query.category() != null) {
+            spec = spec.and((root, cq, cb) -> cb.equal(root.get("mainCategory"), query.category()));
+        }
+        if (query.status() != null) {
+            spec = spec.and((root, cq, cb) -> cb.equal(root.get("status"), query.status()));
+        }
+        if (query.subcategory() != null) {
+            spec = spec.and((root, cq, cb) -> cb.equal(root.get("subcategory"), query.subcategory()));
+        }
+        if (query.search() != null) {
+            // ServiceQuery has already lower-cased the term
+            String like = "%" + query.search() + "%";
+            spec = spec.and((root, cq, cb) -> cb.or(
+                    cb.like(cb.lower(root.get("title")), like),
+                    cb.like(cb.lower(root.get("description")), like)));
+        }
+        if (query.minPrice() != null) {
+            spec = spec.and((root, cq, cb) -> cb.ge(root.get("price"), query.minPrice()));
+        }
+        if (query.maxPrice() != null) {
+            spec = spec.and((root, cq, cb) -> cb.le(root.get("price"), query.maxPrice()));
+        }
+        return spec;
+    }
+
+    // Same columns as ServiceRepository.SERVICE_CARD_SELECT
+    private static CompoundSelection<ServiceDtos.ServiceCardResponse> card(Root<Service> root, CriteriaBuilder cb) {
+        return cb.construct(ServiceDtos.ServiceCardResponse.class,
+                root.get("id"), root.get("shop").get("id"), root.get("title"),
+                cb.substring(root.get("description"), 1, 160), root.get("imageUrl"), root.get("price"),
+                root.get("mainCategory"), root.get("subcategory"), root.get("customCategory"),
+                root.get("status"), root.get("isActive"), root.get("createdAt"), root.get("updatedAt"));
+    }
+}
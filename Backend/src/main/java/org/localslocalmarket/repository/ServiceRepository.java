@@ -1,24 +1,26 @@
 package org.localslocalmarket.repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import org.localslocalmarket.model.Service;
 import org.localslocalmarket.model.ServiceStatus;
+import org.localslocalmarket.web.dto.ServiceDtos;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
-public interface ServiceRepository extends JpaRepository<Service, Long> {
+public interface ServiceRepository extends JpaRepository<Service, Long>, ServiceQueryRepository {
     // Non-paginated methods (for backward compatibility)
-    List<Service> findByShopIdAndIsActiveTrue(Long shopId);
-    List<Service> findByShopIdAndStatusAndIsActiveTrue(Long shopId, ServiceStatus status);
-    List<Service> findByMainCategoryAndIsActiveTrue(String mainCategory);
-    List<Service> findByMainCategoryAndStatusAndIsActiveTrue(String mainCategory, ServiceStatus status);
     List<Service> findByShopIdAndMainCategoryAndIsActiveTrue(Long shopId, String mainCategory);
     List<Service> findByShopIdAndMainCategoryAndStatusAndIsActiveTrue(Long shopId, String mainCategory, ServiceStatus status);
     List<Service> findByTitleContainingIgnoreCaseAndIsActiveTrue(String title);
@@ -27,7 +29,6 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     // Paginated methods
     Page<Service> findByIsActiveTrue(Pageable pageable);
     Page<Service> findByStatusAndIsActiveTrue(ServiceStatus status, Pageable pageable);
-    Page<Service> findByShopIdAndIsActiveTrue(Long shopId, Pageable pageable);
     Page<Service> findByShopIdAndStatusAndIsActiveTrue(Long shopId, ServiceStatus status, Pageable pageable);
     Page<Service> findByMainCategoryAndIsActiveTrue(String mainCategory, Pageable pageable);
     Page<Service> findByMainCategoryAndStatusAndIsActiveTrue(String mainCategory, ServiceStatus status, Pageable pageable);
@@ -36,6 +37,47 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
     Page<Service> findByTitleContainingIgnoreCaseAndIsActiveTrue(String title, Pageable pageable);
     Page<Service> findByShopIdAndTitleContainingIgnoreCaseAndIsActiveTrue(Long shopId, String title, Pageable pageable);
     
+    // Card projections for category grids (description trimmed, no shop hydration)
+    String SERVICE_CARD_SELECT = "SELECT new org.localslocalmarket.web.dto.ServiceDtos$ServiceCardResponse(" +
+           "s.id, s.shop.id, s.title, SUBSTRING(s.description, 1, 160), s.imageUrl, s.price, " +
+           "s.mainCategory, s.subcategory, s.customCategory, s.status, s.isActive, s.createdAt, s.updatedAt) " +
+           "FROM Service s ";
+
+    @Query(value = SERVICE_CARD_SELECT + "WHERE s.isActive = true AND s.mainCategory = :mainCategory AND s.status = :status",
+           countQuery = "SELECT COUNT(s) FROM Service s WHERE s.isActive = true AND s.mainCategory = :mainCategory AND s.status = :status")
+    Page<ServiceDtos.ServiceCardResponse> findActiveCardsByMainCategoryAndStatus(@Param("mainCategory") String mainCategory,
+                                                                                @Param("status") ServiceStatus status,
+                                                                                Pageable pageable);
+
+    @Query(SERVICE_CARD_SELECT + "WHERE s.id IN :ids")
+    List<ServiceDtos.ServiceCardResponse> findCardsByIdIn(@Param("ids") List<Long> ids);
+
+    // Availability toggles: only the status column (plus updated_at for the delta feed) is written,
+    // and the version is left alone; a non-null version must match the stored one
+    @Modifying
+    @Transactional
+    @Query("UPDATE Service s SET s.status = :status, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.isActive = true AND (:version IS NULL OR s.version = :version)")
+    int updateStatus(@Param("id") Long id, @Param("status") ServiceStatus status,
+                     @Param("version") Long version, @Param("now") LocalDateTime now);
+
+    @Query("SELECT s.id, s.status FROM Service s WHERE s.id IN :ids")
+    List<Object[]> findIdAndStatusByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("SELECT s.shop.id FROM Service s WHERE s.id = :id")
+    java.util.Optional<Long> findShopIdById(@Param("id") Long id);
+
+    // Ownership checks read service.shop.owner after the call returns
+    @EntityGraph(attributePaths = {"shop", "shop.owner"})
+    java.util.Optional<Service> findWithShopAndOwnerById(Long id);
+
+    // Delta feed: active services written after :since, plus ids of those deactivated since
+    @Query(SERVICE_CARD_SELECT + "WHERE s.isActive = true AND s.updatedAt > :since ORDER BY s.updatedAt")
+    List<ServiceDtos.ServiceCardResponse> findActiveCardsChangedSince(@Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT s.id FROM Service s WHERE s.isActive = false AND s.updatedAt > :since")
+    List<Long> findDeactivatedIdsSince(@Param("since") LocalDateTime since);
+    
     // Suggestions (autocomplete)
     @Query("SELECT s FROM Service s WHERE s.isActive = true AND (" +
            "LOWER(s.title) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
@@ -43,24 +85,4 @@ public interface ServiceRepository extends JpaRepository<Service, Long> {
            "LOWER(s.mainCategory) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
            "LOWER(s.subcategory) LIKE LOWER(CONCAT('%', :q, '%')))")
     Page<Service> suggestServices(@Param("q") String q, Pageable pageable);
-    
-    // Advanced search with multiple criteria
-    @Query("SELECT s FROM Service s WHERE s.isActive = true " +
-           "AND (:shopId IS NULL OR s.shop.id = :shopId) " +
-           "AND (:status IS NULL OR s.status = :status) " +
-           "AND (:mainCategory IS NULL OR s.mainCategory = :mainCategory) " +
-           "AND (:subcategory IS NULL OR s.subcategory = :subcategory) " +
-           "AND ( :searchTerm IS NULL OR (LOWER(s.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(s.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ) )")
-    Page<Service> findServicesWithFilters(@Param("shopId") Long shopId,
-                                        @Param("status") ServiceStatus status,
-                                        @Param("mainCategory") String mainCategory,
-                                        @Param("subcategory") String subcategory,
-                                        @Param("searchTerm") String searchTerm,
-                                        Pageable pageable);
-    
-    // Price range queries
-    Page<Service> findByIsActiveTrueAndPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
-    Page<Service> findByShopIdAndIsActiveTrueAndPriceBetween(Long shopId, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
-    Page<Service> findByMainCategoryAndIsActiveTrueAndPriceBetween(String mainCategory, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
 }
@@ -0,0 +1,55 @@
+package org.localslocalmarket.security;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The Crawl-delay each crawler is asked to keep, and the read budget that follows from it.
+ *
+ * SitemapController.generateRobotsTxt() writes its Crawl-delay lines from this table and
+ * RateLimitFilter budgets crawlers with it, so the two cannot drift apart. A crawler that
+ * waits its Crawl-delay between requests is never refused, even if every request is a
+ * sitemap page (the most expensive thing robots.txt lets it fetch).
+ */
+public final class CrawlerBudgets {
+
+    /** Crawl-delay in seconds under "User-agent: *", also used for bots without their own group. */
+    public static final int DEFAULT_CRAWL_DELAY = 1;
+
+    /** Crawlers with their own robots.txt group, in the order robots.txt lists them. */
+    public static final Map<String, Integer> CRAWL_DELAYS;
+    static {
+        Map<String, Integer> delays = new LinkedHashMap<>();
+        delays.put("Googlebot", 1);
+        delays.put("Bingbot", 2);
+        delays.put("Slurp", 2);
+        CRAWL_DELAYS = java.util.Collections.unmodifiableMap(delays);
+    }
+
+    private static final Pattern GENERIC_BOT = Pattern.compile("bot|crawl|spider", Pattern.CASE_INSENSITIVE);
+
+    public record Crawler(String name, int crawlDelaySeconds) {
+        /** Requests per minute of a crawler that keeps exactly to its Crawl-delay. */
+        public int requestsPerMinute() {
+            return Math.max(60 / crawlDelaySeconds, 1);
+        }
+    }
+
+    private CrawlerBudgets() {}
+
+    /** The crawler a User-Agent claims to be, or null for ordinary clients. */
+    public static Crawler match(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return null;
+        }
+        String ua = userAgent.toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Integer> entry : CRAWL_DELAYS.entrySet()) {
+            if (ua.contains(entry.getKey().toLowerCase(Locale.ROOT))) {
+                return new Crawler(entry.getKey(), entry.getValue());
+            }
+        }
+        return GENERIC_BOT.matcher(ua).find() ? new Crawler("other", DEFAULT_CRAWL_DELAY) : null;
+    }
+}
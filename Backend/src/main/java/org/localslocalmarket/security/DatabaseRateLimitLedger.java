@@ -0,0 +1,135 @@
+package org.localslocalmarket.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * RateLimitLedger on the rate_limit_buckets table. A lease is one short transaction:
+ * lock the key's row, apply the GCRA step, write the new TAT. Rows whose TAT has passed
+ * are pruned at most once a minute per instance.
+ *
+ * Leases are taken on GETs too, so they run with plain JDBC on the primary pool rather
+ * than through JPA and the routing DataSource: a read-write transaction there would pin
+ * the request, and the caller's reads for the stickiness window, to the primary (see
+ * ReplicaRoutingDataSource).
+ *
+ * The table is created by ddl-auto from RateLimitBucket. On Postgres it is switched to
+ * UNLOGGED at startup: no WAL on this write path, and a crash only resets the limits.
+ * V15__create_rate_limit_buckets.sql creates it that way for schema-managed deployments.
+ */
+@Component
+public class DatabaseRateLimitLedger implements RateLimitLedger {
+
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(1);
+    // Fits the bucket_key column; longer keys (forwarded-for headers are client-controlled) are hashed
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private static final String SELECT_TAT = "SELECT tat_micros FROM rate_limit_buckets WHERE bucket_key = ?";
+    // Two instances may see a new key at once; the loser's insert is a no-op
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO rate_limit_buckets (bucket_key, tat_micros) VALUES (?, 0) ON CONFLICT (bucket_key) DO NOTHING";
+    private static final String UPDATE_TAT = "UPDATE rate_limit_buckets SET tat_micros = ? WHERE bucket_key = ?";
+    private static final String DELETE_IDLE = "DELETE FROM rate_limit_buckets WHERE tat_micros < ?";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final AtomicLong nextPruneAt = new AtomicLong();
+    // Row lock clause for the SELECT; SQLite has none and serializes writers instead
+    private String forUpdate = "";
+
+    // Depends on the EntityManagerFactory so ddl-auto has created the table first
+    public DatabaseRateLimitLedger(@Qualifier("primaryDataSource") ObjectProvider<DataSource> primaryDataSource,
+                                   DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        // primaryDataSource only exists with the read replica on (ReadReplicaConfig)
+        this.dataSource = primaryDataSource.getIfAvailable(() -> dataSource);
+        this.jdbc = new JdbcTemplate(this.dataSource);
+        this.tx = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+    }
+
+    @PostConstruct
+    void prepareTable() {
+        String database;
+        try (Connection connection = dataSource.getConnection()) {
+            database = connection.getMetaData().getDatabaseProductName().toLowerCase();
+        } catch (SQLException e) {
+            System.err.println("DatabaseRateLimitLedger: Could not detect database: " + e.getMessage());
+            return;
+        }
+        if (!database.contains("postgres")) {
+            return;
+        }
+        forUpdate = " FOR UPDATE";
+        try {
+            String persistence = jdbc.queryForObject(
+                    "SELECT relpersistence FROM pg_class WHERE oid = to_regclass('rate_limit_buckets')", String.class);
+            if ("p".equals(persistence)) {
+                jdbc.execute("ALTER TABLE rate_limit_buckets SET UNLOGGED");
+                System.out.println("DatabaseRateLimitLedger: Switched rate_limit_buckets to UNLOGGED");
+            }
+        } catch (Exception e) {
+            System.err.println("DatabaseRateLimitLedger: Could not make rate_limit_buckets UNLOGGED: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int lease(String key, int limit, int minUnits, int maxUnits, int returnedUnits, Duration window) {
+        String bucketKey = storageKey(key);
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        Integer granted = tx.execute(status -> {
+            Long tat = lockedTat(bucketKey);
+            if (tat == null) {
+                jdbc.update(INSERT_IF_ABSENT, bucketKey);
+                tat = lockedTat(bucketKey);
+            }
+            Grant grant = RateLimitLedger.apply(tat, now, limit, minUnits, maxUnits, returnedUnits, window);
+            jdbc.update(UPDATE_TAT, grant.tat(), bucketKey);
+            return grant.units();
+        });
+        pruneIfDue(now);
+        return granted;
+    }
+
+    private Long lockedTat(String bucketKey) {
+        return jdbc.query(SELECT_TAT + forUpdate, rs -> rs.next() ? rs.getLong(1) : null, bucketKey);
+    }
+
+    private void pruneIfDue(long now) {
+        long due = nextPruneAt.get();
+        if (now >= due && nextPruneAt.compareAndSet(due, now + PRUNE_INTERVAL.toNanos() / 1000)) {
+            jdbc.update(DELETE_IDLE, now);
+        }
+    }
+
+    static String storageKey(String key) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
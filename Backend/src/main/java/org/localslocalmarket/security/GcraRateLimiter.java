@@ -0,0 +1,97 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter using the generic cell rate algorithm (GCRA): per key, "limit requests
+ * per window" is one long, the theoretical arrival time (TAT) of the next request.
+ * Every request pushes the TAT forward by window/limit, and a request is refused when
+ * that would put it more than a window ahead of now. Bursts of up to limit are allowed,
+ * and capacity then refills smoothly, like a token bucket.
+ *
+ * - Lock-free: a request is a map lookup plus one compareAndSet on the key's AtomicLong.
+ * - Idle eviction: a key whose TAT has passed is indistinguishable from a new key, so
+ *   sweeping it loses nothing. A sweep runs once per window, and sooner when the map
+ *   reaches maxKeys.
+ * - Fixed memory: while the map is still full after a sweep (every key active, e.g. a
+ *   flood of spoofed IPs), keys it has not seen share one overflow budget instead of
+ *   adding entries, so heap use stays bounded by maxKeys.
+ */
+public class GcraRateLimiter implements RateLimitStore {
+
+    private final long windowNanos;
+    private final int maxKeys;
+    private final long originNanos = System.nanoTime();
+    private final Map<String, AtomicLong> tats = new ConcurrentHashMap<>();
+    private final AtomicLong overflowTat = new AtomicLong();
+    // Only one request thread sweeps at a time; the rest carry on without waiting
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long nextSweepAt;
+    // Full maps are swept at most this often, so a flood does not sweep on every request
+    private final long minSweepGapNanos;
+
+    public GcraRateLimiter(Duration window, int maxKeys) {
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+        this.nextSweepAt = windowNanos;
+        this.minSweepGapNanos = Math.min(windowNanos, Duration.ofSeconds(1).toNanos());
+    }
+
+    /** True if the key may make another request at this limit per window; the request is then counted. */
+    @Override
+    public boolean tryAcquire(String key, int limit) {
+        return tryAcquire(key, limit, 1);
+    }
+
+    /**
+     * Cost-weighted form: the request uses cost of the key's limit units per window, so
+     * a cost-50 request takes as much budget as 50 cost-1 requests. Costs above the limit
+     * are charged as the whole limit, so such a request is only allowed on a full budget.
+     */
+    @Override
+    public boolean tryAcquire(String key, int limit, int cost) {
+        // Nanos since this limiter was created, so a fresh key's TAT of 0 is always in the past
+        long now = System.nanoTime() - originNanos;
+        AtomicLong tat = tats.get(key);
+        if (tat == null) {
+            if (now >= nextSweepAt || tats.size() >= maxKeys) {
+                sweep(now);
+            }
+            tat = tats.size() < maxKeys ? tats.computeIfAbsent(key, k -> new AtomicLong()) : overflowTat;
+        }
+        long interval = windowNanos / limit * Math.min(Math.max(cost, 1), limit);
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            if (next - now > windowNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /** Keys currently held; at most maxKeys, give or take requests racing to add one. */
+    public int size() {
+        return tats.size();
+    }
+
+    private void sweep(long now) {
+        if (now < nextSweepAt - windowNanos + minSweepGapNanos || !sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            // A request racing this may count against a cell just removed; it is a key
+            // that was idle for a whole window, so at worst one request goes uncounted
+            tats.values().removeIf(tat -> tat.get() <= now);
+            nextSweepAt = now + windowNanos;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+}
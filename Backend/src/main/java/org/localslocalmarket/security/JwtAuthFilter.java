@@ -24,11 +24,14 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final AuditService auditService;
+    private final PrincipalCache principalCache;
 
-    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository, AuditService auditService) {
+    public JwtAuthFilter(JwtService jwtService, UserRepository userRepository, AuditService auditService,
+                         PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.auditService = auditService;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -44,7 +47,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 String subject = claims.getSubject();
                 
                 if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    Optional<User> maybeUser = userRepository.findByEmailAndEnabledTrueAndIsActiveTrue(subject);
+                    Optional<User> maybeUser = findActiveUser(subject, claims.get("uid", Long.class));
                     if (maybeUser.isPresent()) {
                         User user = maybeUser.get();
                         
@@ -114,6 +117,17 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Cached by uid once loaded; a cached user whose email is not the subject is ignored
+    private Optional<User> findActiveUser(String subject, Long tokenUserId) {
+        User cached = principalCache.get(tokenUserId);
+        if (cached != null && subject.equals(cached.getEmail())) {
+            return Optional.of(cached);
+        }
+        Optional<User> loaded = userRepository.findByEmailAndEnabledTrueAndIsActiveTrue(subject);
+        loaded.ifPresent(principalCache::put);
+        return loaded;
+    }
+
     private String getClientIp(HttpServletRequest request) {
         String xf = request.getHeader("X-Forwarded-For");
         if (xf != null && !xf.isBlank()) {
@@ -1,36 +1,80 @@
 package org.localslocalmarket.security;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+/**
+ * Issues and verifies the app's HS256 tokens.
+ *
+ * Verification goes through one immutable (thread-safe) parser. Claims that passed
+ * verification are kept, keyed by a SHA-256 of the token, until the token's own exp,
+ * so a client sending the same token on every request pays for the signature check
+ * and JSON parsing once. Failed tokens are never cached, and revocation (TokenBlacklist,
+ * by jti) is checked on every call, cached or not. Cached Claims are shared between
+ * requests: read them, never modify them.
+ */
 @Service
 public class JwtService {
     private final SecretKey key;
     private final long ttlMillis;
     private final long refreshTtlMillis;
-    private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
+    private final TokenBlacklist blacklist;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedClaims;
 
     public JwtService(@Value("${llm.jwt.secret}") String secret,
                       @Value("${llm.jwt.ttl-minutes}") long ttlMinutes,
-                      @Value("${llm.jwt.refresh-ttl-minutes:10080}") long refreshTtlMinutes) {
+                      @Value("${llm.jwt.refresh-ttl-minutes:10080}") long refreshTtlMinutes,
+                      @Value("${llm.jwt.claims-cache.max-size:10000}") long claimsCacheMaxSize,
+                      TokenBlacklist blacklist) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.blacklist = blacklist;
         this.ttlMillis = ttlMinutes * 60_000L;
         this.refreshTtlMillis = refreshTtlMinutes * 60_000L;
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public String generate(String subject, Map<String, Object> claims){
@@ -38,6 +82,7 @@ public class JwtService {
         return Jwts.builder()
                 .setSubject(subject)
                 .addClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(Date.from(now))
                 .setExpiration(new Date(now.toEpochMilli() + ttlMillis))
                 .setIssuer("localslocalmarket")
@@ -49,6 +94,7 @@ public class JwtService {
         Instant now = Instant.now();
         return Jwts.builder()
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(Date.from(now))
                 .setExpiration(new Date(now.toEpochMilli() + refreshTtlMillis))
                 .setIssuer("localslocalmarket")
@@ -58,47 +104,75 @@ public class JwtService {
     }
 
     public String getSubject(String token){
-        if (blacklistedTokens.contains(token)) {
-            throw new JwtException("Token has been blacklisted");
-        }
-        
+        Claims claims;
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            claims = verify(token);
             
             // Validate issuer
             String issuer = claims.getIssuer();
             if (!"localslocalmarket".equals(issuer)) {
                 throw new JwtException("Invalid token issuer");
             }
-            
-            return claims.getSubject();
         } catch (ExpiredJwtException e) {
             throw new JwtException("Token has expired");
         } catch (JwtException e) {
             throw new JwtException("Invalid token: " + e.getMessage());
         }
+        
+        if (blacklist.isRevoked(tokenId(token, claims))) {
+            throw new JwtException("Token has been blacklisted");
+        }
+        return claims.getSubject();
     }
 
     public Claims getClaims(String token) {
-        if (blacklistedTokens.contains(token)) {
-            throw new JwtException("Token has been blacklisted");
-        }
-        
+        Claims claims;
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            claims = verify(token);
         } catch (ExpiredJwtException e) {
             throw new JwtException("Token has expired");
         } catch (JwtException e) {
             throw new JwtException("Invalid token: " + e.getMessage());
         }
+        
+        if (blacklist.isRevoked(tokenId(token, claims))) {
+            throw new JwtException("Token has been blacklisted");
+        }
+        return claims;
+    }
+
+    // Cached claims of a token that verified before; otherwise verify and cache it
+    private Claims verify(String token) {
+        String tokenHash = hash(token);
+        Claims claims = verifiedClaims.getIfPresent(tokenHash);
+        if (claims == null) {
+            claims = parser.parseClaimsJws(token).getBody();
+            // Tokens without exp would never expire from the cache, so they are not kept
+            if (claims.getExpiration() != null) {
+                verifiedClaims.put(tokenHash, claims);
+            }
+        }
+        return claims;
+    }
+
+    // Tokens issued before jti was added are revoked by their hash instead
+    private static String tokenId(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : hash(token);
+    }
+
+    private static long untilExpiry(Claims claims) {
+        long millis = claims.getExpiration().getTime() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
     }
 
     public boolean isTokenExpired(String token) {
@@ -119,17 +193,27 @@ public class JwtService {
         }
     }
 
+    /** Revokes the token on every instance until its exp; invalid or expired tokens need nothing. */
     public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+        Claims claims;
+        try {
+            claims = verify(token);
+        } catch (JwtException e) {
+            return;
+        }
+        blacklist.revoke(tokenId(token, claims), claims.getExpiration().toInstant());
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        try {
+            return blacklist.isRevoked(tokenId(token, verify(token)));
+        } catch (JwtException e) {
+            return false;
+        }
     }
 
+    /** Pulls revocations from other instances now instead of waiting for the next poll. */
     public void cleanupExpiredBlacklistedTokens() {
-        // This could be enhanced with a scheduled task to clean up expired tokens
-        // For now, we'll keep it simple and let the set grow
-        // In production, consider using Redis or a database for token blacklisting
+        blacklist.sync();
     }
 }
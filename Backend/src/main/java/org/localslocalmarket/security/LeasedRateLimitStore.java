@@ -0,0 +1,153 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A limit held across all instances, counted locally. Each instance takes a lease of
+ * several units per key from the shared RateLimitLedger and spends it in memory, so the
+ * hot path is one compareAndSet and the ledger sees one call per lease, not per request.
+ *
+ * - Accuracy: units are charged to the ledger when leased, so all instances together
+ *   never exceed the limit. A lease is only good for leaseTtl, and its unused units are
+ *   handed back with the next lease for that key, so an instance sitting on a lease does
+ *   not starve the others for long.
+ * - Lease size: leasePercent of the limit (at least one request's cost). Strict limits
+ *   such as AUTH_LIMIT end up leasing one unit at a time, i.e. every request goes to the
+ *   ledger; generous ones like the read budget mostly stay local.
+ * - Failure: if the ledger is unreachable the store falls back to a per-instance
+ *   GcraRateLimiter instead of refusing or waving through every request. A ledger call
+ *   can block for the whole connection timeout, so while it is down requests skip it
+ *   and a single request tries it again once every ledgerRetry.
+ * - Memory: leases are swept once they expire; past maxKeys, new keys lease only
+ *   what each request needs, so every request for them goes to the ledger.
+ */
+public class LeasedRateLimitStore implements RateLimitStore {
+
+    private final RateLimitLedger ledger;
+    private final String namespace;
+    private final Duration window;
+    private final int leasePercent;
+    private final long leaseTtlNanos;
+    private final long ledgerRetryNanos;
+    private final int maxKeys;
+    private final GcraRateLimiter fallback;
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private volatile long nextSweepAt;
+    private volatile boolean ledgerDown;
+    // While ledgerDown, the nanoTime after which the next request may try the ledger
+    private final AtomicLong ledgerRetryAt = new AtomicLong();
+
+    public LeasedRateLimitStore(RateLimitLedger ledger, String namespace, Duration window,
+                                int leasePercent, Duration leaseTtl, Duration ledgerRetry, int maxKeys) {
+        this.ledger = ledger;
+        this.namespace = namespace;
+        this.window = window;
+        this.leasePercent = leasePercent;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.ledgerRetryNanos = ledgerRetry.toNanos();
+        this.maxKeys = maxKeys;
+        this.fallback = new GcraRateLimiter(window, maxKeys);
+        this.nextSweepAt = System.nanoTime() + leaseTtlNanos;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int limit, int cost) {
+        int units = Math.min(Math.max(cost, 1), limit);
+        long now = System.nanoTime();
+        Lease lease = leases.get(key);
+        if (lease != null && now < lease.expiresAt && lease.take(units)) {
+            return true;
+        }
+        if (ledgerDown) {
+            long retryAt = ledgerRetryAt.get();
+            // The request that claims the retry tries the ledger; the rest stay local meanwhile
+            if (now - retryAt < 0 || !ledgerRetryAt.compareAndSet(retryAt, now + ledgerRetryNanos)) {
+                return fallback.tryAcquire(key, limit, cost);
+            }
+        }
+        // Two threads renewing the same key both lease; the lease one of them overwrites
+        // is charged but never spent, which errs on the strict side
+        int returned = lease != null ? lease.drain() : 0;
+        if (lease == null && (now >= nextSweepAt || leases.size() >= maxKeys)) {
+            sweep(now);
+        }
+        // A key there is no room to cache leases just what this request needs
+        boolean cacheable = lease != null || leases.size() < maxKeys;
+        int wanted = cacheable ? Math.max(units, limit * leasePercent / 100) : units;
+        int granted;
+        try {
+            granted = ledger.lease(namespace + ":" + key, limit, units, Math.min(wanted, limit), returned, window);
+            if (ledgerDown) {
+                ledgerDown = false;
+                System.out.println("Rate limit ledger reachable again; " + namespace + " limits are shared");
+            }
+        } catch (RuntimeException e) {
+            ledgerRetryAt.set(System.nanoTime() + ledgerRetryNanos);
+            if (!ledgerDown) {
+                ledgerDown = true;
+                System.err.println("Rate limit ledger failed, limiting " + namespace + " per instance: " + e.getMessage());
+            }
+            return fallback.tryAcquire(key, limit, cost);
+        }
+        if (granted == 0) {
+            return false;
+        }
+        if (granted > units) {
+            leases.put(key, new Lease(granted - units, now + leaseTtlNanos));
+        } else if (lease != null) {
+            leases.remove(key, lease);
+        }
+        return true;
+    }
+
+    /** Keys with a lease currently held. */
+    public int size() {
+        return leases.size();
+    }
+
+    private void sweep(long now) {
+        if (!sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            // Expired leases still hold units; they are dropped rather than handed back,
+            // which only keeps that key a little stricter until its ledger TAT passes
+            leases.values().removeIf(lease -> now >= lease.expiresAt);
+            nextSweepAt = now + leaseTtlNanos;
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    private static final class Lease {
+        private final AtomicInteger remaining;
+        private final long expiresAt;
+
+        Lease(int units, long expiresAt) {
+            this.remaining = new AtomicInteger(units);
+            this.expiresAt = expiresAt;
+        }
+
+        boolean take(int units) {
+            while (true) {
+                int current = remaining.get();
+                if (current < units) {
+                    return false;
+                }
+                if (remaining.compareAndSet(current, current - units)) {
+                    return true;
+                }
+            }
+        }
+
+        int drain() {
+            return remaining.getAndSet(0);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+
+import org.localslocalmarket.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Enabled, active users JwtAuthFilter has already loaded, keyed by user id, so an
+ * authenticated request does not re-query the users table just to re-check role and uid.
+ *
+ * Every update or delete of a User row evicts it (PrincipalCacheEviction), so status,
+ * role and email-verification changes apply on this instance's next request; the short
+ * TTL bounds how long another instance can keep serving the old row.
+ *
+ * Cached users are shared by concurrent requests as their principal: read them, never
+ * modify them.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<Long, User> users;
+
+    public PrincipalCache(@Value("${llm.security.principal-cache.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${llm.security.principal-cache.max-size:10000}") long maxSize) {
+        this.users = Caffeine.newBuilder()
+                // A TTL of 0 turns the cache off: every request goes to the database
+                .maximumSize(ttlSeconds > 0 ? maxSize : 0)
+                .expireAfterWrite(Duration.ofSeconds(Math.max(ttlSeconds, 0)))
+                .build();
+    }
+
+    /** The cached user with this id, or null. */
+    public User get(Long userId) {
+        return userId != null ? users.getIfPresent(userId) : null;
+    }
+
+    /** Only enabled, active users belong here. */
+    public void put(User user) {
+        users.put(user.getId(), user);
+    }
+
+    public void evict(Long userId) {
+        if (userId != null) {
+            users.invalidate(userId);
+        }
+    }
+}
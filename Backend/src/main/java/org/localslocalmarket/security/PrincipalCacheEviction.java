@@ -0,0 +1,41 @@
+package org.localslocalmarket.security;
+
+import org.localslocalmarket.model.User;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Evicts a user from PrincipalCache whenever their row is updated or deleted, so no
+ * write path (status, role, email verification, ...) has to remember to. Registered
+ * on User through @EntityListeners; Hibernate creates it through Spring, which
+ * injects the cache.
+ *
+ * The entry is evicted again once the transaction ends: a request that reloaded the
+ * user between the UPDATE and the commit would otherwise re-cache the old row.
+ */
+public class PrincipalCacheEviction {
+
+    private final PrincipalCache principalCache;
+
+    public PrincipalCacheEviction(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void evict(User user) {
+        Long userId = user.getId();
+        principalCache.evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    principalCache.evict(userId);
+                }
+            });
+        }
+    }
+}
@@ -1,13 +1,10 @@
 package org.localslocalmarket.security;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
 
 import org.localslocalmarket.model.User;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,19 +20,32 @@ import jakarta.servlet.http.HttpServletResponse;
 @Order(1)
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private static final long WINDOW_MILLIS = 60_000; // 1 minute window
+    private static final Duration WINDOW = Duration.ofMinutes(1);
     private static final int DEFAULT_LIMIT = 60; // default 60 req/min
     private static final int UPLOAD_LIMIT = 20; // stricter for uploads
     private static final int CREATE_LIMIT = 30; // create endpoints
     private static final int AUTH_LIMIT = 10; // very strict for auth endpoints
     private static final int ADMIN_LIMIT = 200; // higher limit for admins
 
-    private final Map<String, Deque<Long>> ipBuckets = new ConcurrentHashMap<>();
-    private final Map<String, Deque<Long>> userBuckets = new ConcurrentHashMap<>();
+    private final RateLimitStore ipLimiter;
+    private final RateLimitStore userLimiter;
+    private final RateLimitStore readLimiter;
     private final AuditService auditService;
+    private final boolean enabled;
+    private final int readBudget;
 
-    public RateLimitFilter(AuditService auditService) {
+    public RateLimitFilter(AuditService auditService,
+                           RateLimitStoreFactory stores,
+                           @Value("${llm.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${llm.rate-limit.read-budget:600}") int readBudget) {
         this.auditService = auditService;
+        this.enabled = enabled;
+        this.readBudget = readBudget;
+        // Keyed by IP+URI / user+URI, capped so distinct clients cannot grow the heap
+        this.ipLimiter = stores.create("ip", WINDOW);
+        this.userLimiter = stores.create("user", WINDOW);
+        // One budget per client across all GETs, charged by ReadCosts
+        this.readLimiter = stores.create("read", WINDOW);
     }
 
     private boolean shouldLimit(HttpServletRequest request){
@@ -46,6 +56,12 @@ public class RateLimitFilter extends OncePerRequestFilter {
                 uri.equals("/api/shops") || uri.equals("/api/products");
     }
 
+    private boolean isRead(HttpServletRequest request){
+        String method = request.getMethod();
+        return ("GET".equalsIgnoreCase(method) || "HEAD".equalsIgnoreCase(method))
+                && request.getRequestURI().startsWith("/api/");
+    }
+
     private int limitFor(String uri, boolean isAdmin){
         if (isAdmin) return ADMIN_LIMIT;
         if (uri.startsWith("/api/auth/")) return AUTH_LIMIT;
@@ -73,8 +89,16 @@ public class RateLimitFilter extends OncePerRequestFilter {
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        if(!enabled){
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if(isRead(request) && !checkReadBudget(request, response)){
+            return;
+        }
         if(shouldLimit(request)){
-            String ip = clientIp(request);
+            // The address our proxy saw (see checkReadBudget), so a forged X-Forwarded-For buys no extra attempts
+            String ip = request.getRemoteAddr();
             String userId = getCurrentUserId();
             boolean isAdmin = isAdmin();
             String uri = request.getRequestURI();
@@ -82,7 +106,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
             
             // Check IP-based rate limiting
             String ipKey = ip + "|" + uri;
-            if (!checkRateLimit(ipBuckets, ipKey, limit, "IP: " + ip)) {
+            if (!ipLimiter.tryAcquire(ipKey, limit)) {
                 auditService.logRateLimitExceeded(userId != null ? userId : "anonymous", uri, limit);
                 response.setStatus(429);
                 response.setContentType("application/json");
@@ -93,7 +117,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
             // Check user-based rate limiting (if authenticated)
             if (userId != null) {
                 String userKey = userId + "|" + uri;
-                if (!checkRateLimit(userBuckets, userKey, limit, "User: " + userId)) {
+                if (!userLimiter.tryAcquire(userKey, limit)) {
                     auditService.logRateLimitExceeded(userId, uri, limit);
                     response.setStatus(429);
                     response.setContentType("application/json");
@@ -105,53 +129,40 @@ public class RateLimitFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean checkRateLimit(Map<String, Deque<Long>> buckets, String key, int limit, String identifier) {
-        long now = Instant.now().toEpochMilli();
-        long windowStart = now - WINDOW_MILLIS;
-        Deque<Long> q = buckets.computeIfAbsent(key, k -> new ArrayDeque<>());
-        
-        synchronized (q){
-            while(!q.isEmpty() && q.peekFirst() < windowStart){
-                q.pollFirst();
-            }
-            
-            if(q.size() >= limit){
-                return false;
-            }
-            q.addLast(now);
+    /**
+     * Charges a GET against its client's per-minute budget. Crawlers get a budget of their
+     * own, keyed by crawler and IP, sized so that keeping to robots.txt's Crawl-delay never
+     * runs out; claiming to be a crawler buys nothing over the ordinary budget.
+     */
+    private boolean checkReadBudget(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (isAdmin()) return true;
+        // Not X-Forwarded-For: a client could send a new address with every request for a fresh budget
+        String ip = request.getRemoteAddr();
+        String userId = getCurrentUserId();
+        CrawlerBudgets.Crawler crawler = CrawlerBudgets.match(request.getHeader("User-Agent"));
+        String key;
+        int budget;
+        if (crawler != null) {
+            key = "crawler:" + crawler.name() + "|" + ip;
+            budget = crawler.requestsPerMinute() * ReadCosts.SITEMAP;
+        } else if (userId != null) {
+            key = "user:" + userId;
+            budget = readBudget;
+        } else {
+            key = "ip:" + ip;
+            budget = readBudget;
         }
-        return true;
-    }
-
-    private String clientIp(HttpServletRequest request){
-        String xf = request.getHeader("X-Forwarded-For");
-        if(xf != null && !xf.isBlank()){
-            int comma = xf.indexOf(',');
-            return (comma > 0 ? xf.substring(0, comma) : xf).trim();
+        int cost = ReadCosts.of(request);
+        if (readLimiter.tryAcquire(key, budget, cost)) {
+            return true;
         }
-        String xr = request.getHeader("X-Real-IP");
-        if(xr != null && !xr.isBlank()) return xr.trim();
-        return request.getRemoteAddr();
-    }
-
-    // Cleanup method to remove old entries (could be called periodically)
-    public void cleanupOldEntries() {
-        long cutoffTime = Instant.now().toEpochMilli() - WINDOW_MILLIS;
-        
-        ipBuckets.entrySet().removeIf(entry -> {
-            Deque<Long> q = entry.getValue();
-            synchronized (q) {
-                q.removeIf(timestamp -> timestamp < cutoffTime);
-                return q.isEmpty();
-            }
-        });
-        
-        userBuckets.entrySet().removeIf(entry -> {
-            Deque<Long> q = entry.getValue();
-            synchronized (q) {
-                q.removeIf(timestamp -> timestamp < cutoffTime);
-                return q.isEmpty();
-            }
-        });
+        auditService.logRateLimitExceeded(userId != null ? userId : "anonymous", request.getRequestURI(), budget);
+        // Seconds until the budget has refilled enough for a request of this cost
+        long retryAfter = Math.max(1, (WINDOW.toSeconds() * Math.min(cost, budget) + budget - 1) / budget);
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString(retryAfter));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"Read budget exceeded, slow down\"}");
+        return false;
     }
 }
@@ -0,0 +1,42 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+
+/**
+ * The shared side of LeasedRateLimitStore: one GCRA cell per key for every instance,
+ * handed out in leases of several units rather than one request at a time.
+ */
+public interface RateLimitLedger {
+
+    /**
+     * Gives back returnedUnits of an earlier lease nobody used, then takes between
+     * minUnits and maxUnits of the key's limit per window.
+     *
+     * @return the units granted; 0 if fewer than minUnits are left
+     */
+    int lease(String key, int limit, int minUnits, int maxUnits, int returnedUnits, Duration window);
+
+    /**
+     * The GCRA step every ledger applies, on a theoretical arrival time in epoch micros:
+     * refund, then grant as many units as fit in the window.
+     */
+    static Grant apply(long tat, long now, int limit, int minUnits, int maxUnits, int returnedUnits,
+                       Duration window) {
+        long windowMicros = window.toNanos() / 1000;
+        long interval = Math.max(windowMicros / limit, 1);
+        if (tat > now && returnedUnits > 0) {
+            // Units handed back were charged up front; releasing them cannot free more than is in use
+            tat = Math.max(tat - returnedUnits * interval, now);
+        }
+        long start = Math.max(tat, now);
+        long fit = (now + windowMicros - start) / interval;
+        int units = (int) Math.min(maxUnits, Math.max(fit, 0));
+        if (units < minUnits) {
+            return new Grant(tat, 0);
+        }
+        return new Grant(start + units * interval, units);
+    }
+
+    /** The key's TAT after a lease, and the units it granted. */
+    record Grant(long tat, int units) {}
+}
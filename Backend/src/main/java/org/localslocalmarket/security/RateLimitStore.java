@@ -0,0 +1,15 @@
+package org.localslocalmarket.security;
+
+/**
+ * Where RateLimitFilter keeps its counts (see RateLimitStoreFactory). GcraRateLimiter
+ * counts per instance; LeasedRateLimitStore holds each limit across all instances.
+ */
+public interface RateLimitStore {
+
+    /** True if the key may spend cost more units of its limit per window; they are then counted. */
+    boolean tryAcquire(String key, int limit, int cost);
+
+    default boolean tryAcquire(String key, int limit) {
+        return tryAcquire(key, limit, 1);
+    }
+}
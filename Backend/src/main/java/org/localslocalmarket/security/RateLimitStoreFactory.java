@@ -0,0 +1,50 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds RateLimitFilter's stores from llm.rate-limit.store:
+ *
+ * - local:  each instance counts on its own (GcraRateLimiter); with N instances a
+ *           client effectively gets N times every limit
+ * - shared: limits hold across instances through the rate_limit_buckets table
+ *           (LeasedRateLimitStore over DatabaseRateLimitLedger)
+ */
+@Component
+public class RateLimitStoreFactory {
+
+    private final RateLimitLedger ledger;
+    private final boolean shared;
+    private final int maxKeys;
+    private final int leasePercent;
+    private final Duration leaseTtl;
+    private final Duration ledgerRetry;
+
+    public RateLimitStoreFactory(DatabaseRateLimitLedger ledger,
+                                 @Value("${llm.rate-limit.store:local}") String store,
+                                 @Value("${llm.rate-limit.max-keys:100000}") int maxKeys,
+                                 @Value("${llm.rate-limit.lease-percent:10}") int leasePercent,
+                                 @Value("${llm.rate-limit.lease-millis:10000}") long leaseMillis,
+                                 @Value("${llm.rate-limit.ledger-retry-millis:10000}") long ledgerRetryMillis) {
+        this.ledger = ledger;
+        this.shared = "shared".equalsIgnoreCase(store.trim());
+        if (!shared && !"local".equalsIgnoreCase(store.trim())) {
+            throw new IllegalArgumentException("llm.rate-limit.store must be local or shared, not " + store);
+        }
+        this.maxKeys = maxKeys;
+        this.leasePercent = leasePercent;
+        this.leaseTtl = Duration.ofMillis(leaseMillis);
+        this.ledgerRetry = Duration.ofMillis(ledgerRetryMillis);
+    }
+
+    /** A store for one kind of limit; name keeps its keys apart from the other stores' in the ledger. */
+    public RateLimitStore create(String name, Duration window) {
+        if (shared) {
+            return new LeasedRateLimitStore(ledger, name, window, leasePercent, leaseTtl, ledgerRetry, maxKeys);
+        }
+        return new GcraRateLimiter(window, maxKeys);
+    }
+}
@@ -0,0 +1,55 @@
+package org.localslocalmarket.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * What a GET costs against a client's read budget, in units of one listing page.
+ * The weights follow how much work each request makes the server do: the full shop
+ * dump and catalog exports read every row, sitemap pages read up to 1000 shops, and
+ * search cannot be served from the listing caches.
+ */
+final class ReadCosts {
+
+    static final int PAGE = 1;
+    static final int SEARCH = 3;
+    static final int SITEMAP = 5;
+    static final int CHANGE_FEED = 5;
+    static final int ALL_SHOPS = 50;
+    static final int EXPORT = 50;
+
+    // Offset pagination reads and throws away every earlier row: one more unit per 10 pages
+    private static final int PAGES_PER_DEPTH_UNIT = 10;
+    private static final int MAX_DEPTH_COST = 20;
+
+    private ReadCosts() {}
+
+    static int of(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        if (uri.equals("/api/shops/all")) return ALL_SHOPS;
+        if (uri.equals("/api/products/export")) return EXPORT;
+        if (uri.startsWith("/api/sitemap")) return SITEMAP;
+        if (uri.equals("/api/shops/changes")) return CHANGE_FEED;
+        int base = isSearch(request, uri) ? SEARCH : PAGE;
+        return base + depthCost(request.getParameter("page"));
+    }
+
+    private static boolean isSearch(HttpServletRequest request, String uri) {
+        return uri.endsWith("/suggest") || uri.contains("/search")
+                || hasText(request.getParameter("q")) || hasText(request.getParameter("search"));
+    }
+
+    private static int depthCost(String page) {
+        if (page == null) {
+            return 0;
+        }
+        try {
+            return Math.min(Math.max(Integer.parseInt(page.trim()), 0) / PAGES_PER_DEPTH_UNIT, MAX_DEPTH_COST);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
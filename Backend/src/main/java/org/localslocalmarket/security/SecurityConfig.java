@@ -92,6 +92,8 @@ public class SecurityConfig {
 
         // Authorization rules
         http.authorizeHttpRequests(auth -> {
+            // Hibernate / cache statistics are operational data, admins only
+            auth.requestMatchers("/actuator/metrics/**").hasRole("ADMIN");
             if (requireAuthToOrder) {
                 auth.requestMatchers("/api/orders/**").authenticated()
                     .anyRequest().permitAll();
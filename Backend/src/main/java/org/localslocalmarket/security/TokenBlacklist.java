@@ -0,0 +1,246 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.localslocalmarket.model.RevokedToken;
+import org.localslocalmarket.repo.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Revoked token ids (jti), each held only until the token itself would expire.
+ *
+ * - Expiry: ids sit in a Caffeine cache with a per-entry expiry at the token's exp.
+ *   Caffeine orders variable expiry on a timer wheel, so dropping a revocation costs
+ *   O(1) and the set only ever holds tokens that could still be presented. There is no
+ *   size cap on purpose: evicting a live revocation early would reinstate the token.
+ * - Hot path: most requests carry tokens nobody revoked, so a Bloom filter answers
+ *   "not revoked" without touching the cache. Only a filter hit goes on to the cache.
+ *   A Bloom filter cannot forget, so sync() rebuilds it once expired ids clog it.
+ * - Cluster: revoke() writes a RevokedToken row. Every instance loads the unexpired
+ *   rows at startup and polls for new ones every llm.jwt.revocation-sync-seconds, so
+ *   a logout on one instance holds on the others within one poll.
+ */
+@Component
+public class TokenBlacklist {
+
+    // Rows committed by a concurrent writer while a poll runs are picked up by the next one
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+    private static final Duration PRUNE_INTERVAL = Duration.ofMinutes(10);
+    private static final int MIN_FILTER_CAPACITY = 1024;
+
+    private final RevokedTokenRepository repository;
+    private final long syncIntervalSeconds;
+    private final Cache<String, Instant> revoked;
+    // Guards filter writes and rebuilds; isRevoked() never takes it
+    private final Object writeLock = new Object();
+    private volatile BloomFilter filter = new BloomFilter(MIN_FILTER_CAPACITY);
+    private volatile Instant lastSync = Instant.EPOCH;
+    private volatile Instant lastPrune = Instant.EPOCH;
+    private ScheduledExecutorService syncer;
+
+    public TokenBlacklist(RevokedTokenRepository repository,
+                          @Value("${llm.jwt.revocation-sync-seconds:5}") long syncIntervalSeconds) {
+        this.repository = repository;
+        this.syncIntervalSeconds = syncIntervalSeconds;
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(new Expiry<String, Instant>() {
+                    @Override
+                    public long expireAfterCreate(String tokenId, Instant expiresAt, long currentTime) {
+                        return untilExpiry(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+                        return untilExpiry(expiresAt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Removes entries when they expire rather than on the next cache write
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        Instant startedAt = Instant.now();
+        try {
+            for (RevokedToken row : repository.findByExpiresAtAfter(startedAt)) {
+                remember(row.getTokenId(), row.getExpiresAt());
+            }
+            lastSync = startedAt;
+        } catch (Exception e) {
+            // The first poll retries from the epoch
+            System.err.println("TokenBlacklist: Failed to load revoked tokens: " + e.getMessage());
+        }
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-blacklist-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, syncIntervalSeconds, syncIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+    }
+
+    /** Revokes the token until expiresAt, here at once and on other instances after their next poll. */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        remember(tokenId, expiresAt);
+        repository.save(new RevokedToken(tokenId, expiresAt));
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return filter.mightContain(tokenId) && revoked.getIfPresent(tokenId) != null;
+    }
+
+    /** Revocations this instance currently holds. */
+    public long size() {
+        return revoked.estimatedSize();
+    }
+
+    /**
+     * Pulls revocations written by other instances, prunes rows past their expiry and
+     * rebuilds the Bloom filter when needed. Runs on the sync thread; public so tests
+     * can run a poll on demand.
+     */
+    public synchronized void sync() {
+        try {
+            Instant startedAt = Instant.now();
+            Instant since = lastSync.equals(Instant.EPOCH) ? lastSync : lastSync.minus(SYNC_OVERLAP);
+            for (RevokedToken row : repository.findByRevokedAtAfter(since)) {
+                if (row.getExpiresAt().isAfter(startedAt)) {
+                    remember(row.getTokenId(), row.getExpiresAt());
+                }
+            }
+            lastSync = startedAt;
+            if (lastPrune.plus(PRUNE_INTERVAL).isBefore(startedAt)) {
+                repository.deleteExpiredBefore(startedAt);
+                lastPrune = startedAt;
+            }
+            rebuildFilterIfStale();
+        } catch (Exception e) {
+            System.err.println("TokenBlacklist: Revocation sync failed: " + e.getMessage());
+        }
+    }
+
+    private void remember(String tokenId, Instant expiresAt) {
+        synchronized (writeLock) {
+            // Cache first: a reader that sees the filter bit also finds the entry
+            revoked.put(tokenId, expiresAt);
+            filter.add(tokenId);
+        }
+    }
+
+    private void rebuildFilterIfStale() {
+        synchronized (writeLock) {
+            BloomFilter current = filter;
+            long live = revoked.estimatedSize();
+            // Over capacity (false positives climb) or mostly ids that have since expired
+            if (current.insertions() <= current.capacity() && current.insertions() <= 2 * live + MIN_FILTER_CAPACITY) {
+                return;
+            }
+            BloomFilter rebuilt = new BloomFilter((int) Math.max(MIN_FILTER_CAPACITY, Math.min(2 * live, Integer.MAX_VALUE / 16)));
+            revoked.asMap().keySet().forEach(rebuilt::add);
+            filter = rebuilt;
+        }
+    }
+
+    private static long untilExpiry(Instant expiresAt) {
+        return Math.max(Duration.between(Instant.now(), expiresAt).toNanos(), 0);
+    }
+
+    /**
+     * Fixed-size Bloom filter over token ids: about 10 bits and 7 probes per id, roughly
+     * 1% false positives at capacity. Reads are lock-free; add() is only called under
+     * TokenBlacklist's writeLock.
+     */
+    static final class BloomFilter {
+        private static final int HASHES = 7;
+        private static final int BITS_PER_ID = 10;
+
+        private final AtomicLongArray words;
+        private final int bits;
+        private final int capacity;
+        private int insertions;
+
+        BloomFilter(int capacity) {
+            this.capacity = capacity;
+            int wordCount = (int) (((long) capacity * BITS_PER_ID + 63) / 64);
+            this.words = new AtomicLongArray(wordCount);
+            this.bits = wordCount * 64;
+        }
+
+        void add(String id) {
+            long hash = hash64(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                words.getAndAccumulate(bit >>> 6, mask, (word, m) -> word | m);
+            }
+            insertions++;
+        }
+
+        boolean mightContain(String id) {
+            long hash = hash64(id);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < HASHES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int insertions() {
+            return insertions;
+        }
+
+        int capacity() {
+            return capacity;
+        }
+
+        // FNV-1a over the chars, then the murmur3 finalizer so both halves are well mixed
+        private static long hash64(String id) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < id.length(); i++) {
+                h ^= id.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -40,7 +40,8 @@ public class CacheInvalidationService {
             "shops_by_id",
             "shops_list", 
             "all_shops",
-            "shops_paginated"
+            "shops_paginated",
+            "shop_scope_ids"
         );
         clearSpecificCaches(shopCaches);
     }
@@ -99,14 +100,6 @@ public class CacheInvalidationService {
         // Note: Frontend will handle product cache clearing via events
     }
 
-    /**
-     * Clear caches when stock is updated (affects products)
-     */
-    public void onStockUpdated() {
-        System.out.println("CacheInvalidationService: Stock updated - clearing product caches");
-        clearProductCaches();
-    }
-
     /**
      * Clear sitemap-related caches
      */
@@ -121,18 +114,7 @@ public class CacheInvalidationService {
      */
     public void clearServiceCaches() {
         System.out.println("CacheInvalidationService: Clearing service caches");
-        List<String> serviceCaches = Arrays.asList(
-            "services_paginated",
-            "services_by_status_paginated",
-            "services_by_shop_paginated",
-            "services_by_shop_status_paginated",
-            "services_by_category_paginated",
-            "services_by_category_status_paginated",
-            "services_filtered_paginated",
-            "services_by_price_paginated",
-            "services_by_shop_price_paginated",
-            "services_by_category_price_paginated"
-        );
+        List<String> serviceCaches = Arrays.asList(ServiceService.QUERY_CACHE);
         clearSpecificCaches(serviceCaches);
     }
 
@@ -145,14 +127,6 @@ public class CacheInvalidationService {
         // Note: Frontend will handle service cache clearing via events
     }
 
-    /**
-     * Clear caches when service status changes (affects services)
-     */
-    public void onServiceStatusChanged() {
-        System.out.println("CacheInvalidationService: Service status changed - clearing service caches");
-        clearServiceCaches();
-    }
-
     /**
      * Clear caches when service price changes (affects services)
      */
@@ -0,0 +1,124 @@
+package org.localslocalmarket.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.localslocalmarket.model.CatalogTombstone;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.repo.CatalogTombstoneRepository;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repository.ServiceRepository;
+import org.localslocalmarket.web.dto.SyncDtos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Builds the incremental catalog feed behind /api/shops/changes and keeps the
+ * tombstone log for hard deletes.
+ *
+ * Cursors are epoch millis. The returned cursor is taken before the queries run
+ * and moved back by a small overlap, so rows committed by a concurrent writer
+ * are delivered again rather than missed; clients apply upserts idempotently.
+ */
+@Service
+public class CatalogSyncService {
+
+    private static final Duration CURSOR_OVERLAP = Duration.ofSeconds(5);
+
+    private final ShopRepository shops;
+    private final ProductRepository products;
+    private final ServiceRepository services;
+    private final CatalogTombstoneRepository tombstones;
+
+    @Value("${app.sync.max-changes:500}")
+    private int maxChanges;
+
+    @Value("${app.sync.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    public CatalogSyncService(ShopRepository shops, ProductRepository products,
+                              ServiceRepository services, CatalogTombstoneRepository tombstones) {
+        this.shops = shops;
+        this.products = products;
+        this.services = services;
+        this.tombstones = tombstones;
+    }
+
+    /**
+     * Hard-delete a product and write its tombstone in the same transaction, so the
+     * feed can never miss a delete that committed.
+     */
+    @Transactional
+    public void deleteProduct(Product product) {
+        products.delete(product);
+        recordDeletion(CatalogTombstone.EntityType.PRODUCT, product.getId(), product.getShop().getId());
+    }
+
+    /** Hard-delete a shop together with its tombstone; see deleteProduct. */
+    @Transactional
+    public void deleteShop(Shop shop) {
+        shops.delete(shop);
+        recordDeletion(CatalogTombstone.EntityType.SHOP, shop.getId(), shop.getId());
+    }
+
+    /**
+     * Record a hard delete. Also prunes tombstones that are past retention,
+     * which is what lets changesSince() tell a stale cursor to resync.
+     */
+    @Transactional
+    public void recordDeletion(CatalogTombstone.EntityType type, Long entityId, Long shopId) {
+        tombstones.save(new CatalogTombstone(type, entityId, shopId));
+        tombstones.deleteOlderThan(Instant.now().minus(Duration.ofDays(tombstoneRetentionDays)));
+    }
+
+    public SyncDtos.ChangeFeedResponse changesSince(long sinceMillis) {
+        Instant now = Instant.now();
+        long cursor = now.minus(CURSOR_OVERLAP).toEpochMilli();
+        Instant since = Instant.ofEpochMilli(sinceMillis);
+
+        // Older than the tombstone horizon: deletes may have been pruned, so a diff is unsafe
+        if (sinceMillis <= 0 || since.isBefore(now.minus(Duration.ofDays(tombstoneRetentionDays)))) {
+            return new SyncDtos.ChangeFeedResponse(cursor, true, false, List.of(), List.of(), List.of(),
+                    new SyncDtos.RemovedIds(List.of(), List.of(), List.of()));
+        }
+
+        // Fetch one extra row per type to detect truncation without a count query
+        var limit = PageRequest.of(0, maxChanges + 1);
+        LocalDateTime serviceSince = LocalDateTime.ofInstant(since, ZoneId.systemDefault());
+
+        var changedShops = shops.findChangedSince(since, limit);
+        var changedProducts = products.findActiveCardsChangedSince(since, limit);
+        var changedServices = services.findActiveCardsChangedSince(serviceSince, limit);
+        var deletes = tombstones.findByRemovedAtAfterOrderByRemovedAtAsc(since, limit);
+
+        boolean truncated = changedShops.size() > maxChanges || changedProducts.size() > maxChanges
+                || changedServices.size() > maxChanges || deletes.size() > maxChanges;
+        if (truncated) {
+            return new SyncDtos.ChangeFeedResponse(cursor, false, true, List.of(), List.of(), List.of(),
+                    new SyncDtos.RemovedIds(List.of(), List.of(), List.of()));
+        }
+
+        List<Long> removedShops = new ArrayList<>();
+        List<Long> removedProducts = new ArrayList<>(products.findDeactivatedIdsSince(since));
+        List<Long> removedServices = new ArrayList<>(services.findDeactivatedIdsSince(serviceSince));
+        for (CatalogTombstone t : deletes) {
+            switch (t.getEntityType()) {
+                case SHOP -> removedShops.add(t.getEntityId());
+                case PRODUCT -> removedProducts.add(t.getEntityId());
+                case SERVICE -> removedServices.add(t.getEntityId());
+            }
+        }
+
+        return new SyncDtos.ChangeFeedResponse(cursor, false, false,
+                changedShops, changedProducts, changedServices,
+                new SyncDtos.RemovedIds(removedShops, removedProducts, removedServices));
+    }
+}
@@ -0,0 +1,231 @@
+package org.localslocalmarket.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.security.InputValidationService;
+import org.localslocalmarket.security.SanitizingStringDeserializer;
+import org.localslocalmarket.web.dto.ProductDtos;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+
+/**
+ * Bulk product import and export for shop owners.
+ *
+ * Import reads the body row by row, validates each chunk in parallel with the
+ * same InputValidationService rules as POST /api/products, and saves each chunk
+ * in its own transaction, so a bad chunk does not undo earlier ones and memory
+ * stays bounded by the chunk size. Product caches are cleared once at the end.
+ */
+@Service
+public class ProductBulkService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    private final ProductRepository products;
+    private final InputValidationService inputValidationService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readOnlyTx;
+    private final ObjectMapper objectMapper;
+    // Same String sanitizing as JacksonConfig gives the shared mapper, so CSV rows are
+    // cleaned like every other product write
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .addModule(new SimpleModule().addDeserializer(String.class, new SanitizingStringDeserializer()))
+            .build();
+
+    @Value("${app.products.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.products.import.max-rows:10000}")
+    private int maxRows;
+
+    public ProductBulkService(ProductRepository products,
+                              InputValidationService inputValidationService,
+                              CacheInvalidationService cacheInvalidationService,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper) {
+        this.products = products;
+        this.inputValidationService = inputValidationService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    public ProductDtos.ImportResult importProducts(Shop shop, InputStream body, Format format) throws IOException {
+        List<ProductDtos.ImportRowError> errors = new ArrayList<>();
+        long[] counts = new long[2]; // imported, failed
+
+        try (MappingIterator<ProductDtos.ProductImportRow> rows = importReader(format).readValues(body)) {
+            List<IndexedRow> chunk = new ArrayList<>(chunkSize);
+            long rowNumber = 0;
+            while (true) {
+                ProductDtos.ProductImportRow row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    row = rows.nextValue();
+                } catch (IOException | RuntimeException e) {
+                    // Malformed input: the reader cannot resync reliably, so stop here
+                    addError(errors, counts, rowNumber + 1, "Unreadable row, import stopped: " + e.getMessage());
+                    break;
+                }
+                rowNumber++;
+                if (rowNumber > maxRows) {
+                    addError(errors, counts, rowNumber, "Row limit of " + maxRows + " reached, remaining rows ignored");
+                    break;
+                }
+                chunk.add(new IndexedRow(rowNumber, row));
+                if (chunk.size() == chunkSize) {
+                    saveChunk(shop, chunk, errors, counts);
+                    chunk.clear();
+                }
+            }
+            saveChunk(shop, chunk, errors, counts);
+        }
+
+        if (counts[0] > 0) {
+            cacheInvalidationService.onProductDataChanged();
+        }
+        return new ProductDtos.ImportResult(counts[0] + counts[1], counts[0], counts[1], errors);
+    }
+
+    /**
+     * Writes every product of the shop (inactive ones included) straight from a
+     * database cursor.
+     */
+    public void exportProducts(Long shopId, Format format, OutputStream out) {
+        readOnlyTx.executeWithoutResult(status -> {
+            try (var rows = products.streamExportRowsByShopId(shopId);
+                 SequenceWriter writer = exportWriter(format).writeValues(out)) {
+                var it = rows.iterator();
+                while (it.hasNext()) {
+                    writer.write(it.next());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void saveChunk(Shop shop, List<IndexedRow> chunk, List<ProductDtos.ImportRowError> errors, long[] counts) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        // Validation is CPU-only and InputValidationService is stateless, so rows are checked in parallel
+        List<Validated> validated = chunk.parallelStream()
+                .map(r -> validate(shop, r))
+                .toList();
+
+        List<Product> valid = new ArrayList<>(validated.size());
+        for (Validated v : validated) {
+            if (v.product() != null) {
+                valid.add(v.product());
+            } else {
+                addError(errors, counts, v.row(), v.error());
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        try {
+            tx.executeWithoutResult(status -> products.saveAll(valid));
+            counts[0] += valid.size();
+        } catch (RuntimeException e) {
+            long first = chunk.get(0).number();
+            long last = chunk.get(chunk.size() - 1).number();
+            counts[1] += valid.size();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ProductDtos.ImportRowError(first,
+                        "Rows " + first + "-" + last + " not saved: " + e.getMessage()));
+            }
+        }
+    }
+
+    private Validated validate(Shop shop, IndexedRow indexed) {
+        ProductDtos.ProductImportRow row = indexed.data();
+        try {
+            Product p = new Product();
+            p.setShop(shop);
+            p.setTitle(inputValidationService.validateName(row.title()));
+            p.setDescription(inputValidationService.validateDescription(row.description()));
+            if (row.price() == null || row.price().signum() <= 0) {
+                throw new IllegalArgumentException("Price must be greater than 0");
+            }
+            p.setPrice(inputValidationService.validatePrice(row.price()));
+            Integer stockCount = inputValidationService.validateStockCount(row.stockCount());
+            if (stockCount != null) p.setStockCount(stockCount);
+            p.setImagePathsJson(inputValidationService.validateJsonString(row.imagePathsJson()));
+            if (row.category() != null) p.setCategory(inputValidationService.validateCategory(row.category()));
+            if (row.mainCategory() != null) p.setMainCategory(inputValidationService.validateCategory(row.mainCategory()));
+            if (row.subcategory() != null) p.setSubcategory(inputValidationService.validateCategory(row.subcategory()));
+            if (row.customCategory() != null) p.setCustomCategory(inputValidationService.validateCategory(row.customCategory()));
+            return new Validated(indexed.number(), p, null);
+        } catch (IllegalArgumentException e) {
+            return new Validated(indexed.number(), null, e.getMessage());
+        }
+    }
+
+    private static void addError(List<ProductDtos.ImportRowError> errors, long[] counts, long row, String message) {
+        counts[1]++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new ProductDtos.ImportRowError(row, message));
+        }
+    }
+
+    private ObjectReader importReader(Format format) {
+        if (format == Format.CSV) {
+            return csvMapper.readerFor(ProductDtos.ProductImportRow.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        }
+        // The shared mapper carries the sanitizing String deserializer used for request bodies
+        return objectMapper.readerFor(ProductDtos.ProductImportRow.class);
+    }
+
+    private ObjectWriter exportWriter(Format format) {
+        if (format == Format.CSV) {
+            return csvMapper.writerFor(ProductDtos.ProductExportRow.class)
+                    .with(csvMapper.schemaFor(ProductDtos.ProductExportRow.class).withHeader())
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        return objectMapper.writerFor(ProductDtos.ProductExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator(new SerializedString("\n"))
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private record IndexedRow(long number, ProductDtos.ProductImportRow data) {}
+
+    private record Validated(long row, Product product, String error) {}
+}
@@ -0,0 +1,97 @@
+package org.localslocalmarket.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.localslocalmarket.repo.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Recent stock count per product, kept apart from the product caches.
+ *
+ * Stock is by far the most volatile product field. Instead of clearing every
+ * product listing cache on each sale, ProductStockResponseAdvice swaps the counts
+ * held here into responses served from those caches. Stock writes record the
+ * count while they still hold the product's row lock, so entries are written in
+ * the order the database applied them and the latest write always wins.
+ *
+ * Entries expire after llm.cache.live-state.ttl-seconds and are then read from
+ * the database again, which bounds how long a count written on another instance
+ * (or by a transaction that later rolled back) can be shown.
+ */
+@Service
+public class ProductStockOverlay {
+
+    // Keeps IN lists well under the bind-parameter limits of SQLite and Postgres
+    private static final int LOAD_CHUNK = 500;
+    private static final long MAX_ENTRIES = 100_000;
+
+    private final ProductRepository products;
+    private final Cache<Long, Integer> stock;
+
+    public ProductStockOverlay(ProductRepository products,
+                               @Value("${llm.cache.live-state.ttl-seconds:30}") long ttlSeconds) {
+        this.products = products;
+        this.stock = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /** Records the count a stock write left. Call it before the write's transaction commits. */
+    public void onStockWritten(Long productId, int stockCount) {
+        stock.put(productId, stockCount);
+    }
+
+    public void onProductRemoved(Long productId) {
+        stock.invalidate(productId);
+    }
+
+    /**
+     * Records a count just read from the database, unless the product already has an
+     * entry: that one came from a write or an earlier read and is at least as new.
+     */
+    public void onStockRead(Long productId, Integer stockCount) {
+        if (productId != null && stockCount != null) {
+            stock.asMap().putIfAbsent(productId, stockCount);
+        }
+    }
+
+    /**
+     * Current counts for the given products. Products without a live entry are read
+     * from the database and recorded; ids with no row are left out.
+     */
+    public Map<Long, Integer> stockFor(Collection<Long> productIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : productIds) {
+            Integer current = stock.getIfPresent(id);
+            if (current != null) {
+                result.put(id, current);
+            } else if (!missing.contains(id)) {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = missing.subList(from, Math.min(from + LOAD_CHUNK, missing.size()));
+            for (Object[] row : products.findStockCountsByIdIn(chunk)) {
+                Long id = (Long) row[0];
+                Integer count = (Integer) row[1];
+                if (count != null) {
+                    // A write recorded since the read above is newer than it
+                    Integer recorded = stock.asMap().putIfAbsent(id, count);
+                    result.put(id, recorded != null ? recorded : count);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,123 @@
+package org.localslocalmarket.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.localslocalmarket.model.ShopRatingAggregate;
+import org.localslocalmarket.repo.ProductRatingRepository;
+import org.localslocalmarket.repo.ShopRatingAggregateRepository;
+import org.localslocalmarket.web.dto.RatingDtos;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rating summaries for many shops or products at once.
+ *
+ * Each id is cached on its own, so overlapping grids share entries; ids missing
+ * from the cache are loaded together with one query and written back.
+ * Rating writes evict the affected id.
+ */
+@Service
+public class RatingSummaryService {
+
+    public static final int MAX_BATCH = 100;
+
+    private static final String SHOP_CACHE = "shop_rating_summaries";
+    private static final String PRODUCT_CACHE = "product_rating_summaries";
+
+    private final ShopRatingAggregateRepository shopAggregates;
+    private final ProductRatingRepository productRatings;
+    private final CacheManager cacheManager;
+
+    public RatingSummaryService(ShopRatingAggregateRepository shopAggregates,
+                                ProductRatingRepository productRatings,
+                                CacheManager cacheManager) {
+        this.shopAggregates = shopAggregates;
+        this.productRatings = productRatings;
+        this.cacheManager = cacheManager;
+    }
+
+    public Map<Long, RatingDtos.ShopRatingSummary> shopSummaries(Collection<Long> shopIds) {
+        Cache cache = cacheManager.getCache(SHOP_CACHE);
+        Map<Long, RatingDtos.ShopRatingSummary> result = new LinkedHashMap<>();
+        List<Long> missing = collectCached(cache, shopIds, RatingDtos.ShopRatingSummary.class, result);
+        if (!missing.isEmpty()) {
+            Map<Long, RatingDtos.ShopRatingSummary> loaded = new LinkedHashMap<>();
+            for (Long id : missing) {
+                loaded.put(id, new RatingDtos.ShopRatingSummary(0, 0.0, RatingDtos.RatingSummary.EMPTY, RatingDtos.RatingSummary.EMPTY));
+            }
+            for (ShopRatingAggregate a : shopAggregates.findAllById(missing)) {
+                loaded.put(a.getShopId(), toSummary(a));
+            }
+            putAll(cache, loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public Map<Long, RatingDtos.RatingSummary> productSummaries(Collection<Long> productIds) {
+        Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+        Map<Long, RatingDtos.RatingSummary> result = new LinkedHashMap<>();
+        List<Long> missing = collectCached(cache, productIds, RatingDtos.RatingSummary.class, result);
+        if (!missing.isEmpty()) {
+            Map<Long, RatingDtos.RatingSummary> loaded = new LinkedHashMap<>();
+            for (Long id : missing) {
+                loaded.put(id, RatingDtos.RatingSummary.EMPTY);
+            }
+            for (Object[] row : productRatings.countAndSumGroupedByProduct(missing)) {
+                loaded.put((Long) row[0], RatingDtos.RatingSummary.of(((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+            }
+            putAll(cache, loaded);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public void evictShop(Long shopId) {
+        Cache cache = cacheManager.getCache(SHOP_CACHE);
+        if (cache != null) {
+            cache.evict(shopId);
+        }
+    }
+
+    public void evictProduct(Long productId) {
+        Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+        if (cache != null) {
+            cache.evict(productId);
+        }
+    }
+
+    private static RatingDtos.ShopRatingSummary toSummary(ShopRatingAggregate a) {
+        long count = a.getAuthCount() + a.getUnauthCount();
+        long sum = a.getAuthSum() + a.getUnauthSum();
+        return new RatingDtos.ShopRatingSummary(count, RatingDtos.RatingSummary.of(count, sum).average(),
+                RatingDtos.RatingSummary.of(a.getAuthCount(), a.getAuthSum()),
+                RatingDtos.RatingSummary.of(a.getUnauthCount(), a.getUnauthSum()));
+    }
+
+    private static <T> List<Long> collectCached(Cache cache, Collection<Long> ids, Class<T> type, Map<Long, T> into) {
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null || into.containsKey(id) || missing.contains(id)) {
+                continue;
+            }
+            T cached = cache != null ? cache.get(id, type) : null;
+            if (cached != null) {
+                into.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    private static <T> void putAll(Cache cache, Map<Long, T> values) {
+        if (cache != null) {
+            values.forEach(cache::put);
+        }
+    }
+}
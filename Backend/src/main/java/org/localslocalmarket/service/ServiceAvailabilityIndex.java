@@ -0,0 +1,108 @@
+package org.localslocalmarket.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.localslocalmarket.model.ServiceStatus;
+import org.localslocalmarket.repository.ServiceRepository;
+import org.springframework.beans.factory.annotation.Value;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Recent AVAILABLE / NOT_AVAILABLE status of each service, held in memory.
+ *
+ * Providers flip status many times a day. Status writes update this index
+ * instead of evicting the service listing caches: ServiceStatusResponseAdvice
+ * applies it to cached pages, and status-filtered listings are filtered against
+ * it. Ids without a live entry are read from the database when asked for.
+ *
+ * Entries expire after llm.cache.live-state.ttl-seconds, which bounds how long a
+ * status written on another instance can go unnoticed here.
+ */
+@org.springframework.stereotype.Service
+public class ServiceAvailabilityIndex {
+
+    // Keeps IN lists well under the bind-parameter limits of SQLite and Postgres
+    private static final int LOAD_CHUNK = 500;
+    private static final long MAX_ENTRIES = 100_000;
+
+    private final ServiceRepository serviceRepository;
+    private final Cache<Long, ServiceStatus> statusById;
+
+    public ServiceAvailabilityIndex(ServiceRepository serviceRepository,
+                                    @Value("${llm.cache.live-state.ttl-seconds:30}") long ttlSeconds) {
+        this.serviceRepository = serviceRepository;
+        this.statusById = Caffeine.newBuilder()
+                .maximumSize(MAX_ENTRIES)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /** Records a status write. Call it before the write's transaction commits. */
+    public void onStatusChanged(Long serviceId, ServiceStatus status) {
+        statusById.put(serviceId, status);
+    }
+
+    public void onServiceRemoved(Long serviceId) {
+        statusById.invalidate(serviceId);
+    }
+
+    /**
+     * Records a status just read from the database, unless the service already has
+     * an entry: that one came from a write or an earlier read and is at least as new.
+     */
+    public void onStatusRead(Long serviceId, ServiceStatus status) {
+        if (serviceId != null && status != null) {
+            statusById.asMap().putIfAbsent(serviceId, status);
+        }
+    }
+
+    /**
+     * Current status of the given services. Services without a live entry are read
+     * from the database and recorded; ids with no row are left out.
+     */
+    public Map<Long, ServiceStatus> statusFor(Collection<Long> serviceIds) {
+        Map<Long, ServiceStatus> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : serviceIds) {
+            ServiceStatus current = statusById.getIfPresent(id);
+            if (current != null) {
+                result.put(id, current);
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = missing.subList(from, Math.min(from + LOAD_CHUNK, missing.size()));
+            for (Object[] row : serviceRepository.findIdAndStatusByIdIn(chunk)) {
+                // A status written since the read above is newer than it
+                Long id = (Long) row[0];
+                ServiceStatus status = (ServiceStatus) row[1];
+                ServiceStatus recorded = statusById.asMap().putIfAbsent(id, status);
+                result.put(id, recorded != null ? recorded : status);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The ids from {@code orderedIds} whose current status is {@code status},
+     * in their original order.
+     */
+    public List<Long> filterByStatus(List<Long> orderedIds, ServiceStatus status) {
+        Map<Long, ServiceStatus> current = statusFor(orderedIds);
+        List<Long> result = new ArrayList<>();
+        for (Long id : orderedIds) {
+            if (current.get(id) == status) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package org.localslocalmarket.service;
+
+import java.math.BigDecimal;
+import java.util.Locale;
+
+import org.localslocalmarket.model.ServiceStatus;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Normalized criteria for the paginated service listings, and the key their pages
+ * are cached under in "service_queries".
+ *
+ * Every listing endpoint builds its query with of(...), so requests asking for the
+ * same rows produce equal keys and share one entry: "/paginated?category=Food" and
+ * "/category/Food/paginated", "sortDir=ASC" and no sortDir, "minPrice=10.00" and
+ * "minPrice=10", "search= Cut " and "search=cut".
+ */
+public record ServiceQuery(
+        Long shopId,
+        ServiceStatus status,
+        String category,
+        String subcategory,
+        String search,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        String sortBy,
+        Sort.Direction sortDir,
+        int page,
+        int size
+) {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    public static ServiceQuery of(Long shopId, ServiceStatus status, String category, String subcategory, String search,
+                                  BigDecimal minPrice, BigDecimal maxPrice, String sortBy, String sortDir, int page, int size) {
+        String sortField = blankToNull(sortBy);
+        String searchTerm = blankToNull(search);
+        return new ServiceQuery(
+                shopId,
+                status,
+                blankToNull(category),
+                blankToNull(subcategory),
+                // Matched with LOWER(...) LIKE, so case never changes the result
+                searchTerm != null ? searchTerm.toLowerCase(Locale.ROOT) : null,
+                minPrice != null ? minPrice.stripTrailingZeros() : null,
+                maxPrice != null ? maxPrice.stripTrailingZeros() : null,
+                sortField != null ? sortField : "id",
+                "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC,
+                Math.max(page, 0),
+                size < 1 ? DEFAULT_SIZE : Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Public category browsing gets lean ServiceCardResponse rows; anything scoped to a
+     * shop or a search gets full Service rows (shop management edits straight from them).
+     * Derived from the criteria, so equal keys always hold the same row type.
+     */
+    public boolean cards() {
+        return category != null && shopId == null && search == null;
+    }
+
+    /**
+     * The same criteria without status or paging. Status-filtered pages are cut from
+     * the ordered id list cached under this key (see ServiceAvailabilityIndex); its
+     * size of 0 keeps it apart from every page key.
+     */
+    public ServiceQuery scope() {
+        return new ServiceQuery(shopId, null, category, subcategory, search, minPrice, maxPrice, sortBy, sortDir, 0, 0);
+    }
+
+    public Sort sort() {
+        return Sort.by(sortDir, sortBy);
+    }
+
+    public Pageable pageable() {
+        return PageRequest.of(page, size, sort());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
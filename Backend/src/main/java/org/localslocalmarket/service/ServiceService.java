@@ -1,6 +1,5 @@
 package org.localslocalmarket.service;
 
-import java.math.BigDecimal;
 import java.util.List;
 
 import org.localslocalmarket.dto.ServicePageResponse;
@@ -8,13 +7,17 @@ import org.localslocalmarket.model.Service;
 import org.localslocalmarket.model.ServiceStatus;
 import org.localslocalmarket.repository.ServiceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import org.localslocalmarket.web.dto.ServiceDtos;
 import org.localslocalmarket.web.dto.SuggestionDtos;
 
 @org.springframework.stereotype.Service
@@ -29,32 +32,40 @@ public class ServiceService {
     @Autowired
     private CacheInvalidationService cacheInvalidationService;
     
-    public List<Service> getServicesByShop(Long shopId) {
-        return serviceRepository.findByShopIdAndIsActiveTrue(shopId);
-    }
+    @Autowired
+    private ServiceAvailabilityIndex availabilityIndex;
     
-    public List<Service> getServicesByShopAndStatus(Long shopId, ServiceStatus status) {
-        return serviceRepository.findByShopIdAndStatusAndIsActiveTrue(shopId, status);
-    }
+    @Autowired
+    private CacheManager cacheManager;
     
-    public List<Service> getServicesByCategory(String category) {
-        return serviceRepository.findByMainCategoryAndIsActiveTrue(category);
-    }
+    @Autowired
+    private PlatformTransactionManager transactionManager;
     
-    public List<Service> getServicesByCategoryAndStatus(String category, ServiceStatus status) {
-        return serviceRepository.findByMainCategoryAndStatusAndIsActiveTrue(category, status);
-    }
+    // Every paginated listing page and status-free id list, keyed by ServiceQuery
+    public static final String QUERY_CACHE = "service_queries";
     
-    public List<Service> getAllServices() {
-        return serviceRepository.findAll();
-    }
+    // Hard cap on rows per cursor page, whatever limit the client asks for
+    public static final int MAX_CURSOR_LIMIT = 100;
     
-    public List<Service> getServicesByStatus(ServiceStatus status) {
-        return serviceRepository.findByStatusAndIsActiveTrue(status, org.springframework.data.domain.Pageable.unpaged()).getContent();
+    /**
+     * One keyset page of active service cards, in id order, starting after the given
+     * cursor (the last id of the previous page; null for the first page). limit is
+     * clamped to 1..MAX_CURSOR_LIMIT.
+     */
+    public ServiceDtos.ServiceCursorPage getServiceCards(Long cursor, int limit, Long shopId, String category,
+                                                        ServiceStatus status, String search) {
+        int size = Math.max(1, Math.min(limit, MAX_CURSOR_LIMIT));
+        ServiceQuery criteria = ServiceQuery.of(shopId, status, category, null, search, null, null, null, null, 0, size);
+        List<ServiceDtos.ServiceCardResponse> rows = serviceRepository.findCardsAfter(cursor, criteria, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<ServiceDtos.ServiceCardResponse> content = hasNext ? rows.subList(0, size) : rows;
+        Long nextCursor = hasNext ? content.get(content.size() - 1).id() : null;
+        return new ServiceDtos.ServiceCursorPage(content, nextCursor, hasNext, size);
     }
     
     public Service createService(Service service) {
         Service savedService = serviceRepository.save(service);
+        availabilityIndex.onStatusChanged(savedService.getId(), savedService.getStatus());
         cacheInvalidationService.onServiceDataChanged();
         return savedService;
     }
@@ -63,9 +74,25 @@ public class ServiceService {
         Service service = serviceRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Service not found"));
         
-        // Check if status or price changed for specific cache invalidation
+        // Check what changed for specific cache invalidation
         boolean statusChanged = !service.getStatus().equals(serviceDetails.getStatus());
         boolean priceChanged = !java.util.Objects.equals(service.getPrice(), serviceDetails.getPrice());
+        boolean otherChanged = !java.util.Objects.equals(service.getTitle(), serviceDetails.getTitle())
+                || !java.util.Objects.equals(service.getDescription(), serviceDetails.getDescription())
+                || !java.util.Objects.equals(service.getImageUrl(), serviceDetails.getImageUrl())
+                || !java.util.Objects.equals(service.getMainCategory(), serviceDetails.getMainCategory())
+                || !java.util.Objects.equals(service.getSubcategory(), serviceDetails.getSubcategory())
+                || !java.util.Objects.equals(service.getCustomCategory(), serviceDetails.getCustomCategory())
+                || !java.util.Objects.equals(service.getIsActive(), serviceDetails.getIsActive());
+        
+        // Status alone is written like an availability toggle: cached listings are not evicted
+        // for it, so the version they carry must not change either
+        if (statusChanged && !priceChanged && !otherChanged && Boolean.TRUE.equals(service.getIsActive())) {
+            if (!writeStatus(id, serviceDetails.getStatus(), serviceDetails.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Service.class, id);
+            }
+            return service.withStatus(serviceDetails.getStatus());
+        }
         
         service.setTitle(serviceDetails.getTitle());
         service.setDescription(serviceDetails.getDescription());
@@ -76,17 +103,18 @@ public class ServiceService {
         service.setCustomCategory(serviceDetails.getCustomCategory());
         service.setStatus(serviceDetails.getStatus());
         service.setIsActive(serviceDetails.getIsActive());
+        // Carry the caller's version so a write based on a stale read fails instead of overwriting
+        service.setVersion(serviceDetails.getVersion());
         
         Service savedService = serviceRepository.save(service);
         
         // Smart cache invalidation based on what changed
         if (statusChanged) {
-            cacheInvalidationService.onServiceStatusChanged();
+            availabilityIndex.onStatusChanged(savedService.getId(), savedService.getStatus());
         }
         if (priceChanged) {
             cacheInvalidationService.onServicePriceChanged();
-        }
-        if (!statusChanged && !priceChanged) {
+        } else {
             cacheInvalidationService.onServiceDataChanged();
         }
         
@@ -98,214 +126,119 @@ public class ServiceService {
             .orElseThrow(() -> new RuntimeException("Service not found"));
         service.setIsActive(false);
         serviceRepository.save(service);
+        availabilityIndex.onServiceRemoved(id);
         cacheInvalidationService.onServiceDataChanged();
     }
     
-    public Service getServiceById(Long id) {
-        return serviceRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Service not found"));
-    }
-    
-    // ========== PAGINATED METHODS WITH CACHING ==========
-    
-    /**
-     * Get paginated services with caching
-     */
-    @Cacheable(value = "services_paginated", key = "#page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesPaginated(int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_paginated", page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByIsActiveTrue(pageable);
-        
-        return convertToServicePageResponse(servicePage);
-    }
-    
-    /**
-     * Get paginated services by status with caching
-     */
-    @Cacheable(value = "services_by_status_paginated", key = "#status + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByStatusPaginated(ServiceStatus status, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_status_paginated", status + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByStatusAndIsActiveTrue(status, pageable);
-        
-        return convertToServicePageResponse(servicePage);
-    }
-    
-    /**
-     * Get paginated services by shop with caching
-     */
-    @Cacheable(value = "services_by_shop_paginated", key = "#shopId + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByShopPaginated(Long shopId, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_shop_paginated", shopId + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByShopIdAndIsActiveTrue(shopId, pageable);
-        
-        return convertToServicePageResponse(servicePage);
-    }
-    
-    /**
-     * Get paginated services by shop and status with caching
-     */
-    @Cacheable(value = "services_by_shop_status_paginated", key = "#shopId + '_' + #status + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByShopAndStatusPaginated(Long shopId, ServiceStatus status, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_shop_status_paginated", shopId + "_" + status + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByShopIdAndStatusAndIsActiveTrue(shopId, status, pageable);
-        
-        return convertToServicePageResponse(servicePage);
-    }
-    
     /**
-     * Get paginated services by category with caching
+     * Availability toggle: writes only the status column and updates the
+     * in-memory index, leaving every service listing cache in place.
+     *
+     * @return false if there is no active service with this id
      */
-    @Cacheable(value = "services_by_category_paginated", key = "#category + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByCategoryPaginated(String category, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_category_paginated", category + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByMainCategoryAndIsActiveTrue(category, pageable);
-        
-        return convertToServicePageResponse(servicePage);
+    public boolean updateStatus(Long id, ServiceStatus status) {
+        return writeStatus(id, status, null);
     }
     
-    /**
-     * Get paginated services by category and status with caching
-     */
-    @Cacheable(value = "services_by_category_status_paginated", key = "#category + '_' + #status + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByCategoryAndStatusPaginated(String category, ServiceStatus status, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_category_status_paginated", category + "_" + status + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByMainCategoryAndStatusAndIsActiveTrue(category, status, pageable);
-        
-        return convertToServicePageResponse(servicePage);
+    public java.util.Optional<Long> getShopIdOfService(Long id) {
+        return serviceRepository.findShopIdById(id);
     }
     
-    /**
-     * Get paginated services with advanced filters and caching
-     */
-    @Cacheable(value = "services_filtered_paginated", key = "#shopId + '_' + #status + '_' + #mainCategory + '_' + #subcategory + '_' + #searchTerm + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesWithFiltersPaginated(Long shopId, ServiceStatus status, String mainCategory, 
-                                                             String subcategory, String searchTerm, int page, int size, 
-                                                             String sortBy, String sortDir) {
-        String cacheKey = shopId + "_" + status + "_" + mainCategory + "_" + subcategory + "_" + searchTerm + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir;
-        smartCacheService.recordCacheAccess("services_filtered_paginated", cacheKey);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findServicesWithFilters(shopId, status, mainCategory, subcategory, searchTerm, pageable);
-        
-        return convertToServicePageResponse(servicePage);
+    public Service getServiceById(Long id) {
+        return serviceRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Service not found"));
     }
-    
-    /**
-     * Get paginated services by price range with caching
-     */
-    @Cacheable(value = "services_by_price_paginated", key = "#minPrice + '_' + #maxPrice + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByPriceRangePaginated(BigDecimal minPrice, BigDecimal maxPrice, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_price_paginated", minPrice + "_" + maxPrice + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByIsActiveTrueAndPriceBetween(minPrice, maxPrice, pageable);
-        
-        return convertToServicePageResponse(servicePage);
+
+    public Service getServiceWithShopAndOwnerById(Long id) {
+        return serviceRepository.findWithShopAndOwnerById(id)
+            .orElseThrow(() -> new RuntimeException("Service not found"));
     }
     
-    /**
-     * Get paginated services by shop and price range with caching
-     */
-    @Cacheable(value = "services_by_shop_price_paginated", key = "#shopId + '_' + #minPrice + '_' + #maxPrice + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByShopAndPriceRangePaginated(Long shopId, BigDecimal minPrice, BigDecimal maxPrice, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_shop_price_paginated", shopId + "_" + minPrice + "_" + maxPrice + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByShopIdAndIsActiveTrueAndPriceBetween(shopId, minPrice, maxPrice, pageable);
-        
-        return convertToServicePageResponse(servicePage);
-    }
+    // ========== PAGINATED METHODS WITH CACHING ==========
     
     /**
-     * Get paginated services by category and price range with caching
+     * One page of the active services matching the query: lean cards or full entities
+     * as ServiceQuery.cards() decides. Pages are cached in "service_queries" under the
+     * query itself. Status-filtered pages are cut from the status-free id list of
+     * query.scope() (cached in the same cache) against the availability index, so
+     * availability toggles never invalidate anything.
      */
-    @Cacheable(value = "services_by_category_price_paginated", key = "#category + '_' + #minPrice + '_' + #maxPrice + '_' + #page + '_' + #size + '_' + (#sortBy != null ? #sortBy : 'id') + '_' + (#sortDir != null ? #sortDir : 'asc')")
-    public ServicePageResponse getServicesByCategoryAndPriceRangePaginated(String category, BigDecimal minPrice, BigDecimal maxPrice, int page, int size, String sortBy, String sortDir) {
-        smartCacheService.recordCacheAccess("services_by_category_price_paginated", category + "_" + minPrice + "_" + maxPrice + "_" + page + "_" + size + "_" + sortBy + "_" + sortDir);
-        
-        Sort sort = createSort(sortBy, sortDir);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<Service> servicePage = serviceRepository.findByMainCategoryAndIsActiveTrueAndPriceBetween(category, minPrice, maxPrice, pageable);
-        
-        return convertToServicePageResponse(servicePage);
+    public ServicePageResponse<?> findServices(ServiceQuery query) {
+        if (query.status() != null) {
+            List<Long> scopeIds = cached(query.scope(), () -> serviceRepository.findIds(query.scope()));
+            return query.cards()
+                    ? statusFilteredPage(scopeIds, query, serviceRepository::findCardsByIdIn, ServiceDtos.ServiceCardResponse::id)
+                    : statusFilteredPage(scopeIds, query, serviceRepository::findAllById, Service::getId);
+        }
+        return cached(query, () -> query.cards()
+                ? convertToServicePageResponse(serviceRepository.findCards(query))
+                : convertToServicePageResponse(serviceRepository.findServices(query)));
     }
     
     // ========== CACHE EVICTION METHODS ==========
     
     /**
-     * Clear all service caches when service data changes
+     * Clear all service listing caches when service data changes
      */
-    @CacheEvict(value = {"services_paginated", "services_by_status_paginated", "services_by_shop_paginated", 
-                        "services_by_shop_status_paginated", "services_by_category_paginated", 
-                        "services_by_category_status_paginated", "services_filtered_paginated",
-                        "services_by_price_paginated", "services_by_shop_price_paginated", 
-                        "services_by_category_price_paginated"}, allEntries = true)
+    @CacheEvict(value = QUERY_CACHE, allEntries = true)
     public void clearAllServiceCaches() {
         // Cache eviction handled by annotation
     }
     
-    /**
-     * Clear shop-specific service caches
-     */
-    @CacheEvict(value = {"services_by_shop_paginated", "services_by_shop_status_paginated", 
-                        "services_by_shop_price_paginated"}, allEntries = true)
-    public void clearShopServiceCaches() {
-        // Cache eviction handled by annotation
-    }
+    // ========== HELPER METHODS ==========
     
     /**
-     * Clear category-specific service caches
+     * Status-only write that leaves the version alone. The index is updated while the
+     * UPDATE still holds the row lock. False if the service is gone or inactive, or
+     * expectedVersion (when given) no longer matches.
      */
-    @CacheEvict(value = {"services_by_category_paginated", "services_by_category_status_paginated", 
-                        "services_by_category_price_paginated"}, allEntries = true)
-    public void clearCategoryServiceCaches() {
-        // Cache eviction handled by annotation
+    private boolean writeStatus(Long id, ServiceStatus status, Long expectedVersion) {
+        return Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(tx -> {
+            if (serviceRepository.updateStatus(id, status, expectedVersion, java.time.LocalDateTime.now()) == 0) {
+                return false;
+            }
+            availabilityIndex.onStatusChanged(id, status);
+            return true;
+        }));
     }
     
-    // ========== HELPER METHODS ==========
+    @SuppressWarnings("unchecked")
+    private <T> T cached(ServiceQuery key, java.util.function.Supplier<T> loader) {
+        Cache cache = cacheManager.getCache(QUERY_CACHE);
+        if (cache == null) {
+            return loader.get();
+        }
+        return (T) cache.get(key, loader::get);
+    }
     
     /**
-     * Create Sort object from sort parameters
+     * One page of the scope ids that currently have the query's status, with only
+     * that page's rows loaded (by primary key) and returned in scope order
      */
-    private Sort createSort(String sortBy, String sortDir) {
-        if (sortBy == null || sortBy.trim().isEmpty()) {
-            sortBy = "id";
-        }
+    private <T> ServicePageResponse<T> statusFilteredPage(List<Long> scopeIds, ServiceQuery query,
+                                                          java.util.function.Function<List<Long>, List<T>> loader,
+                                                          java.util.function.Function<T, Long> idOf) {
+        List<Long> matching = availabilityIndex.filterByStatus(scopeIds, query.status());
+        int from = (int) Math.min((long) query.page() * query.size(), matching.size());
+        int to = Math.min(from + query.size(), matching.size());
+        List<Long> pageIds = matching.subList(from, to);
         
-        Sort.Direction direction = Sort.Direction.ASC;
-        if (sortDir != null && sortDir.equalsIgnoreCase("desc")) {
-            direction = Sort.Direction.DESC;
+        List<T> content = List.of();
+        if (!pageIds.isEmpty()) {
+            java.util.Map<Long, T> byId = new java.util.HashMap<>();
+            for (T row : loader.apply(pageIds)) {
+                byId.put(idOf.apply(row), row);
+            }
+            content = pageIds.stream().map(byId::get).filter(java.util.Objects::nonNull).toList();
         }
-        
-        return Sort.by(direction, sortBy);
+        return convertToServicePageResponse(new PageImpl<>(content, query.pageable(), matching.size()));
     }
     
     /**
-     * Convert Page<Service> to ServicePageResponse
+     * Convert a page of services (entities or card projections) to ServicePageResponse
      */
-    private ServicePageResponse convertToServicePageResponse(Page<Service> servicePage) {
-        return new ServicePageResponse(
+    private <T> ServicePageResponse<T> convertToServicePageResponse(Page<T> servicePage) {
+        return new ServicePageResponse<>(
             servicePage.getContent(),
             servicePage.getNumber(),
             servicePage.getSize(),
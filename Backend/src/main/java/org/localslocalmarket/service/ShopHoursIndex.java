@@ -0,0 +1,227 @@
+package org.localslocalmarket.service;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.localslocalmarket.model.BusinessHours;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.repo.ShopRepository;
+import org.springframework.beans.factory.annotation.Value;
+
+/**
+ * Which shops are open at a given instant, without parsing anyone's business hours
+ * on the request path.
+ *
+ * Each shop's compiled BusinessHours sit in hour-of-week slots (168 per time zone):
+ * a shop is in {@code fullSlots[h]} when it is open for the whole hour and in
+ * {@code partialSlots[h]} when it opens or closes inside it. Most lookups are one
+ * set membership test; only shops in a partial slot are checked to the minute.
+ *
+ * Shops written on this instance are updated through onShopChanged/onShopRemoved;
+ * ids the index has not seen are loaded from the database when first asked for.
+ * Entries older than llm.cache.live-state.ttl-seconds are read again the next time
+ * they are asked for, so hours changed on another instance show up within that
+ * window. Shops without published hours are never reported open.
+ */
+@org.springframework.stereotype.Service
+public class ShopHoursIndex {
+
+    private static final int SLOT_MINUTES = 60;
+    private static final int SLOTS = BusinessHours.MINUTES_PER_WEEK / SLOT_MINUTES;
+    // Keeps IN lists well under the bind-parameter limits of SQLite and Postgres
+    private static final int LOAD_CHUNK = 500;
+
+    private record Entry(ZoneId zone, BusinessHours hours, long loadedAtNanos) {}
+
+    private static final class ZoneSlots {
+        final Set<Long>[] fullSlots = newSlots();
+        final Set<Long>[] partialSlots = newSlots();
+
+        @SuppressWarnings("unchecked")
+        private static Set<Long>[] newSlots() {
+            Set<Long>[] slots = new Set[SLOTS];
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = ConcurrentHashMap.newKeySet();
+            }
+            return slots;
+        }
+    }
+
+    private final ShopRepository shopRepository;
+    private final ZoneId defaultZone;
+    private final long ttlNanos;
+    // Shops seen so far; a null-hours entry means "no published hours"
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ZoneId, ZoneSlots> slotsByZone = new ConcurrentHashMap<>();
+
+    public ShopHoursIndex(ShopRepository shopRepository,
+                          @Value("${llm.shops.default-time-zone:Asia/Manila}") String defaultTimeZone,
+                          @Value("${llm.cache.live-state.ttl-seconds:30}") long ttlSeconds) {
+        this.shopRepository = shopRepository;
+        this.defaultZone = ZoneId.of(defaultTimeZone);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public void onShopChanged(Shop shop) {
+        put(shop.getId(), new Entry(zoneOf(shop.getTimeZone()),
+                hoursOf(shop.getBusinessHoursIntervals(), shop.getBusinessHoursJson()), System.nanoTime()));
+    }
+
+    public void onShopRemoved(Long shopId) {
+        entries.computeIfPresent(shopId, (id, previous) -> {
+            unslot(id, previous);
+            return null;
+        });
+    }
+
+    /** The ids from {@code orderedIds} open at {@code at}, in their original order. */
+    public List<Long> filterOpen(List<Long> orderedIds, Instant at) {
+        loadMissing(orderedIds);
+        Map<ZoneId, Integer> minuteByZone = new HashMap<>();
+        List<Long> result = new ArrayList<>();
+        for (Long id : orderedIds) {
+            Entry entry = entries.get(id);
+            if (entry == null || entry.hours() == null) {
+                continue;
+            }
+            int minute = minuteByZone.computeIfAbsent(entry.zone(), zone -> BusinessHours.minuteOfWeek(at, zone));
+            ZoneSlots slots = slotsByZone.get(entry.zone());
+            int slot = minute / SLOT_MINUTES;
+            if (slots.fullSlots[slot].contains(id)
+                    || (slots.partialSlots[slot].contains(id) && entry.hours().isOpenAt(minute))) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    public boolean isOpen(Long shopId, Instant at) {
+        return !filterOpen(List.of(shopId), at).isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Zone the shop's hours are read in: its own valid IANA id, else the configured default. */
+    public ZoneId zoneOf(String timeZone) {
+        if (timeZone == null || timeZone.isBlank()) {
+            return defaultZone;
+        }
+        try {
+            return ZoneId.of(timeZone);
+        } catch (DateTimeException e) {
+            return defaultZone;
+        }
+    }
+
+    // Rows written before hours were compiled on save only have the JSON
+    private static BusinessHours hoursOf(String intervals, String json) {
+        return intervals != null ? BusinessHours.decode(intervals) : BusinessHours.fromJson(json);
+    }
+
+    private void put(Long shopId, Entry entry) {
+        // compute() locks the key, so slots are never left with a mix of old and new hours
+        entries.compute(shopId, (id, previous) -> {
+            if (previous != null) {
+                unslot(id, previous);
+            }
+            slot(id, entry);
+            return entry;
+        });
+    }
+
+    private void slot(Long id, Entry entry) {
+        if (entry.hours() == null) {
+            return;
+        }
+        ZoneSlots slots = slotsByZone.computeIfAbsent(entry.zone(), zone -> new ZoneSlots());
+        BusinessHours hours = entry.hours();
+        for (int i = 0; i < hours.intervalCount(); i++) {
+            int start = hours.start(i);
+            int end = hours.end(i);
+            for (int slot = start / SLOT_MINUTES; slot * SLOT_MINUTES < end && slot < SLOTS; slot++) {
+                int slotStart = slot * SLOT_MINUTES;
+                if (start <= slotStart && end >= slotStart + SLOT_MINUTES) {
+                    slots.fullSlots[slot].add(id);
+                } else {
+                    slots.partialSlots[slot].add(id);
+                }
+            }
+        }
+    }
+
+    private void unslot(Long id, Entry entry) {
+        if (entry.hours() == null) {
+            return;
+        }
+        ZoneSlots slots = slotsByZone.get(entry.zone());
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slots.fullSlots[slot].remove(id);
+            slots.partialSlots[slot].remove(id);
+        }
+    }
+
+    private void loadMissing(List<Long> ids) {
+        long now = System.nanoTime();
+        // Expired entries are reloaded too; remember which so a write made meanwhile is kept
+        Map<Long, Entry> expired = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                missing.add(id);
+            } else if (now - entry.loadedAtNanos() > ttlNanos) {
+                expired.put(id, entry);
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Set<Long> found = new HashSet<>();
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = missing.subList(from, Math.min(from + LOAD_CHUNK, missing.size()));
+            for (Object[] row : shopRepository.findHoursByIdIn(chunk)) {
+                Long id = (Long) row[0];
+                String timeZone = (String) row[1];
+                String intervals = (String) row[2];
+                Entry entry = new Entry(zoneOf(timeZone), hoursOf(intervals, (String) row[3]), now);
+                found.add(id);
+                // Only replace what was missing or expired: hours written meanwhile are newer than this read
+                entries.compute(id, (key, previous) -> {
+                    if (previous != null && previous != expired.get(key)) {
+                        return previous;
+                    }
+                    if (previous != null) {
+                        unslot(key, previous);
+                    }
+                    slot(key, entry);
+                    return entry;
+                });
+            }
+        }
+        // Ids with no row (deleted shops) are not cached, and expired ones are dropped; they are simply never open
+        for (Map.Entry<Long, Entry> stale : expired.entrySet()) {
+            if (!found.contains(stale.getKey())) {
+                entries.computeIfPresent(stale.getKey(), (id, previous) -> {
+                    if (previous != stale.getValue()) {
+                        return previous;
+                    }
+                    unslot(id, previous);
+                    return null;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.localslocalmarket.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.localslocalmarket.model.ShopRating;
+import org.localslocalmarket.model.ShopRatingAggregate;
+import org.localslocalmarket.model.UnauthenticatedShopReview;
+import org.localslocalmarket.repo.ShopRatingAggregateRepository;
+import org.localslocalmarket.repo.ShopRatingRepository;
+import org.localslocalmarket.repo.UnauthenticatedShopReviewRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps shop_rating_aggregate in step with the two review tables.
+ *
+ * Ratings are saved here, and their delta is applied to the aggregate with one
+ * insert-or-increment statement in the same transaction: a rating and its count
+ * commit together, and concurrent ratings each add exactly their own delta. Shops
+ * rated before the table existed are seeded by the V9 migration or backfillIfEmpty(),
+ * so a missing row means the shop is getting its first rating.
+ */
+@Service
+public class ShopRatingAggregateService {
+
+    private final ShopRatingAggregateRepository aggregates;
+    private final ShopRatingRepository shopRatings;
+    private final UnauthenticatedShopReviewRepository unauthReviews;
+
+    public ShopRatingAggregateService(ShopRatingAggregateRepository aggregates,
+                                      ShopRatingRepository shopRatings,
+                                      UnauthenticatedShopReviewRepository unauthReviews) {
+        this.aggregates = aggregates;
+        this.shopRatings = shopRatings;
+        this.unauthReviews = unauthReviews;
+    }
+
+    /**
+     * Saves a new or changed authenticated rating and applies it to the aggregate.
+     *
+     * @param previousStars the user's earlier rating for this shop, or null for a first rating
+     */
+    @Transactional
+    public ShopRating saveAuthenticatedRating(ShopRating rating, Integer previousStars) {
+        ShopRating saved = shopRatings.save(rating);
+        long countDelta = previousStars == null ? 1 : 0;
+        long sumDelta = saved.getStars() - (previousStars == null ? 0 : previousStars);
+        aggregates.upsertAuthenticated(saved.getShop().getId(), countDelta, sumDelta);
+        return saved;
+    }
+
+    @Transactional
+    public UnauthenticatedShopReview saveUnauthenticatedReview(UnauthenticatedShopReview review) {
+        UnauthenticatedShopReview saved = unauthReviews.save(review);
+        aggregates.upsertUnauthenticated(saved.getShop().getId(), 1, saved.getStars());
+        return saved;
+    }
+
+    /**
+     * First start after the table was introduced: seed it with two grouped queries.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (aggregates.count() > 0) {
+            return;
+        }
+        Map<Long, long[]> totals = new HashMap<>();
+        accumulate(totals, shopRatings.countAndSumGroupedByShop(), 0);
+        accumulate(totals, unauthReviews.countAndSumGroupedByShop(), 2);
+        if (totals.isEmpty()) {
+            return;
+        }
+        aggregates.saveAll(totals.entrySet().stream()
+                .map(e -> new ShopRatingAggregate(e.getKey(),
+                        e.getValue()[0], e.getValue()[1], e.getValue()[2], e.getValue()[3]))
+                .toList());
+        System.out.println("ShopRatingAggregateService: Backfilled rating aggregates for " + totals.size() + " shops");
+    }
+
+    private static void accumulate(Map<Long, long[]> totals, List<Object[]> rows, int offset) {
+        for (Object[] row : rows) {
+            long[] t = totals.computeIfAbsent((Long) row[0], id -> new long[4]);
+            t[offset] = ((Number) row[1]).longValue();
+            t[offset + 1] = row[2] == null ? 0 : ((Number) row[2]).longValue();
+        }
+    }
+}
@@ -141,8 +141,10 @@ public class SmartCacheService {
      * Get cache hit ratio for monitoring
      */
     public double getCacheHitRatio(String cacheName) {
-        // This would require cache statistics from the underlying cache implementation
-        // For now, return a placeholder
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            return nativeCache.stats().hitRate();
+        }
         return 0.0;
     }
 
@@ -162,91 +164,32 @@ public class SmartCacheService {
      * Evict service-related caches based on access patterns
      */
     public void evictLeastRecentlyUsedServiceCaches(int maxEntries) {
-        try {
-            String[] serviceCacheNames = {
-                "services_paginated",
-                "services_by_status_paginated",
-                "services_by_shop_paginated",
-                "services_by_shop_status_paginated",
-                "services_by_category_paginated",
-                "services_by_category_status_paginated",
-                "services_filtered_paginated",
-                "services_by_price_paginated",
-                "services_by_shop_price_paginated",
-                "services_by_category_price_paginated"
-            };
-
-            for (String cacheName : serviceCacheNames) {
-                evictLeastRecentlyUsed(cacheName, maxEntries);
-            }
-        } catch (Exception e) {
-            System.err.println("SmartCacheService: Error evicting service caches: " + e.getMessage());
-        }
+        evictLeastRecentlyUsed(ServiceService.QUERY_CACHE, maxEntries);
     }
 
     /**
-     * Evict service caches for a specific shop
+     * Evict service listings that can contain a specific shop's services
+     * (queries for that shop and queries not scoped to any shop)
      */
     public void evictShopServiceCaches(Long shopId) {
-        try {
-            String[] shopServiceCacheNames = {
-                "services_by_shop_paginated",
-                "services_by_shop_status_paginated",
-                "services_by_shop_price_paginated"
-            };
-
-            for (String cacheName : shopServiceCacheNames) {
-                Cache cache = cacheManager.getCache(cacheName);
-                if (cache != null) {
-                    // Evict all entries that contain the shop ID
-                    cacheAccessTimes.entrySet().removeIf(entry -> {
-                        if (entry.getKey().startsWith(cacheName + ":") && entry.getKey().contains(shopId.toString())) {
-                            String[] parts = entry.getKey().split(":", 2);
-                            if (parts.length == 2) {
-                                cache.evict(parts[1]);
-                            }
-                            cacheAccessCounts.remove(entry.getKey());
-                            return true;
-                        }
-                        return false;
-                    });
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("SmartCacheService: Error evicting shop service caches: " + e.getMessage());
-        }
+        evictServiceQueries(query -> query.shopId() == null || query.shopId().equals(shopId));
     }
 
     /**
-     * Evict service caches for a specific category
+     * Evict service listings that can contain a specific category's services
      */
     public void evictCategoryServiceCaches(String category) {
-        try {
-            String[] categoryServiceCacheNames = {
-                "services_by_category_paginated",
-                "services_by_category_status_paginated",
-                "services_by_category_price_paginated"
-            };
+        evictServiceQueries(query -> query.category() == null || query.category().equals(category));
+    }
 
-            for (String cacheName : categoryServiceCacheNames) {
-                Cache cache = cacheManager.getCache(cacheName);
-                if (cache != null) {
-                    // Evict all entries that contain the category
-                    cacheAccessTimes.entrySet().removeIf(entry -> {
-                        if (entry.getKey().startsWith(cacheName + ":") && entry.getKey().contains(category)) {
-                            String[] parts = entry.getKey().split(":", 2);
-                            if (parts.length == 2) {
-                                cache.evict(parts[1]);
-                            }
-                            cacheAccessCounts.remove(entry.getKey());
-                            return true;
-                        }
-                        return false;
-                    });
-                }
+    private void evictServiceQueries(java.util.function.Predicate<ServiceQuery> matches) {
+        try {
+            Cache cache = cacheManager.getCache(ServiceService.QUERY_CACHE);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                nativeCache.asMap().keySet().removeIf(key -> key instanceof ServiceQuery query && matches.test(query));
             }
         } catch (Exception e) {
-            System.err.println("SmartCacheService: Error evicting category service caches: " + e.getMessage());
+            System.err.println("SmartCacheService: Error evicting service queries: " + e.getMessage());
         }
     }
 
@@ -256,27 +199,10 @@ public class SmartCacheService {
     public void logServiceCacheStats() {
         try {
             System.out.println("=== Service Cache Statistics ===");
-            String[] serviceCacheNames = {
-                "services_paginated",
-                "services_by_status_paginated",
-                "services_by_shop_paginated",
-                "services_by_shop_status_paginated",
-                "services_by_category_paginated",
-                "services_by_category_status_paginated",
-                "services_filtered_paginated",
-                "services_by_price_paginated",
-                "services_by_shop_price_paginated",
-                "services_by_category_price_paginated"
-            };
-
-            for (String cacheName : serviceCacheNames) {
-                Cache cache = cacheManager.getCache(cacheName);
-                if (cache != null) {
-                    long accessCount = cacheAccessTimes.entrySet().stream()
-                        .filter(entry -> entry.getKey().startsWith(cacheName + ":"))
-                        .count();
-                    System.out.println("Service Cache: " + cacheName + " - Access Count: " + accessCount);
-                }
+            Cache cache = cacheManager.getCache(ServiceService.QUERY_CACHE);
+            if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                System.out.println("Service Cache: " + ServiceService.QUERY_CACHE + " - Entries: " + nativeCache.estimatedSize()
+                        + " - Hit Ratio: " + String.format(java.util.Locale.ROOT, "%.3f", nativeCache.stats().hitRate()));
             }
         } catch (Exception e) {
             System.err.println("SmartCacheService: Error logging service cache stats: " + e.getMessage());
@@ -0,0 +1,82 @@
+package org.localslocalmarket.service;
+
+import java.time.Instant;
+
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.repo.ProductRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Stock changes that must hold up under concurrent orders for the same product.
+ *
+ * The availability check and the decrement run as one conditional UPDATE, so the
+ * database row lock decides between competing requests instead of a
+ * read-modify-write in Java that could let two buyers take the last item.
+ * Every count written here is recorded in ProductStockOverlay before the row
+ * lock is released, so the overlay sees writes in the order they were applied.
+ */
+@Service
+public class StockService {
+
+    public enum Outcome { DECREMENTED, OUT_OF_STOCK, NOT_FOUND }
+
+    public record DecrementResult(Outcome outcome, int stockCount) {}
+
+    private final ProductRepository products;
+    private final ProductStockOverlay stockOverlay;
+
+    public StockService(ProductRepository products, ProductStockOverlay stockOverlay) {
+        this.products = products;
+        this.stockOverlay = stockOverlay;
+    }
+
+    /**
+     * Takes {@code amount} units if at least that many are in stock; otherwise leaves
+     * the stock untouched and reports what is left.
+     */
+    @Transactional
+    public DecrementResult decrement(Long productId, int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than 0");
+        }
+        // UPDATE first so the write lock is taken before the read below
+        int updated = products.decrementStockIfAvailable(productId, amount, Instant.now());
+        Integer remaining = products.findStockCountById(productId).orElse(null);
+        if (remaining == null) {
+            return new DecrementResult(Outcome.NOT_FOUND, 0);
+        }
+        if (updated == 0) {
+            return new DecrementResult(Outcome.OUT_OF_STOCK, remaining);
+        }
+        stockOverlay.onStockWritten(productId, remaining);
+        return new DecrementResult(Outcome.DECREMENTED, remaining);
+    }
+
+    /**
+     * Sets the stock count without touching anything else, the version included: cached
+     * product responses are not evicted for stock, so the version they carry must stay
+     * valid. {@code expectedVersion}, if given, must match the stored one.
+     *
+     * @return false if the product is gone or its version no longer matches
+     */
+    @Transactional
+    public boolean setStockCount(Long productId, int stockCount, Long expectedVersion) {
+        if (products.setStockCount(productId, stockCount, expectedVersion, Instant.now()) == 0) {
+            return false;
+        }
+        stockOverlay.onStockWritten(productId, stockCount);
+        return true;
+    }
+
+    /**
+     * Saves an edit that sets the product's stock count. The flush takes the row lock
+     * (and runs the version check) before the new count is recorded.
+     */
+    @Transactional
+    public Product saveWithStockCount(Product product) {
+        Product saved = products.saveAndFlush(product);
+        stockOverlay.onStockWritten(saved.getId(), saved.getStockCount());
+        return saved;
+    }
+}
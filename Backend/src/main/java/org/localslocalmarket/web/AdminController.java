@@ -18,6 +18,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -45,6 +46,7 @@ public class AdminController {
     }
     
     @GetMapping("/dashboard/stats")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         try {
             // Get current time and time 30 days ago
@@ -105,6 +107,7 @@ public class AdminController {
     }
     
     @GetMapping("/users")
+    @Transactional(readOnly = true)
     public ResponseEntity<Page<User>> getUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -132,6 +135,7 @@ public class AdminController {
     }
     
     @GetMapping("/users/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<User> getUser(@PathVariable Long id) {
         return users.findById(id)
                 .map(ResponseEntity::ok)
@@ -156,6 +160,7 @@ public class AdminController {
                         user.setEnabled(true); // Keep enabled but mark as inactive
                         user.setActive(false);
                     }
+                    // Saving evicts the cached principal, so suspended/disabled users stop authenticating now
                     users.save(user);
                     return ResponseEntity.ok(Map.of("message", "User status updated successfully"));
                 })
@@ -163,6 +168,7 @@ public class AdminController {
     }
     
     @GetMapping("/shops")
+    @Transactional(readOnly = true)
     public ResponseEntity<Page<Shop>> getShops(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -182,6 +188,7 @@ public class AdminController {
     }
     
     @GetMapping("/shops/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Shop> getShop(@PathVariable Long id) {
         return shops.findById(id)
                 .map(ResponseEntity::ok)
@@ -215,6 +222,7 @@ public class AdminController {
     }
     
     @GetMapping("/products")
+    @Transactional(readOnly = true)
     public ResponseEntity<Page<Product>> getProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -232,29 +240,35 @@ public class AdminController {
         } else if ("out-of-stock".equals(filter)) {
             productsPage = products.findByStockCount(0, pageable);
         } else {
-            productsPage = products.findAll(pageable);
+            productsPage = products.findAllWithShop(pageable);
         }
         
         return ResponseEntity.ok(productsPage);
     }
     
     @GetMapping("/products/{id}")
+    @Transactional(readOnly = true)
     public ResponseEntity<Product> getProduct(@PathVariable Long id) {
-        return products.findById(id)
+        return products.findWithShopById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @PatchMapping("/products/{id}/status")
-    public ResponseEntity<?> updateProductStatus(@PathVariable Long id, @RequestBody Map<String, Boolean> request) {
+    public ResponseEntity<?> updateProductStatus(@PathVariable Long id, @RequestBody Map<String, Object> request) {
         return products.findById(id)
                 .map(product -> {
-                    Boolean isActive = request.get("isActive");
-                    if (isActive != null) {
-                        product.setIsActive(isActive);
-                        products.save(product);
+                    Object isActive = request.get("isActive");
+                    if (isActive instanceof Boolean active) {
+                        product.setIsActive(active);
+                        // Optional version from the moderation view; a concurrent owner edit turns this into a 409
+                        if (request.get("version") instanceof Number version) {
+                            product.setVersion(version.longValue());
+                        }
+                        product = products.save(product);
                     }
-                    return ResponseEntity.ok(Map.of("message", "Product status updated successfully"));
+                    return ResponseEntity.ok(Map.of("message", "Product status updated successfully",
+                            "version", product.getVersion()));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -13,11 +13,13 @@ import org.localslocalmarket.service.EmailService;
 import org.localslocalmarket.service.PasswordResetService;
 import org.localslocalmarket.web.dto.AuthDtos;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -135,6 +137,17 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            // Revoked until its exp on every instance, not just dropped by this client
+            jwt.blacklistToken(authorization.substring(7));
+            String userId = authorizationService.getCurrentUser().map(u -> u.getId().toString()).orElse("unknown");
+            auditService.logSecurityEvent(AuditService.AuditEventType.LOGOUT, userId, "Token revoked on logout");
+        }
+        return ResponseEntity.ok(Map.of("message", "Logged out"));
+    }
+
     @PostMapping("/admin/change-role")
     public ResponseEntity<?> changeUserRole(@RequestBody AuthDtos.ChangeRoleRequest req) {
         try {
@@ -170,11 +183,9 @@ public class AuthController {
                         
                         // Update role
                         user.setRole(newRole);
+                        // Saving evicts the cached principal: tokens carrying the old role stop matching
                         users.save(user);
                         
-                        // Blacklist any existing tokens for this user to force re-authentication
-                        // Note: In a production system, you'd want to implement token blacklisting per user
-                        
                         return ResponseEntity.ok(Map.of("message", "Role updated successfully"));
                     })
                     .orElseGet(() -> ResponseEntity.notFound().build());
@@ -0,0 +1,72 @@
+package org.localslocalmarket.web;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.WebRequest;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Turns lost optimistic-lock races on Product, Shop and Service into 409 responses.
+ *
+ * Ordered first because the other advices have catch-all Exception handlers that
+ * would otherwise answer 500.
+ */
+@ControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OptimisticLockExceptionHandler {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * A versioned write lost against a concurrent one, or the client sent a version
+     * it read before someone else saved. The body carries the version now stored so
+     * the client can reload and retry.
+     */
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(
+            ObjectOptimisticLockingFailureException ex, WebRequest request) {
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("timestamp", LocalDateTime.now());
+        errorResponse.put("status", HttpStatus.CONFLICT.value());
+        errorResponse.put("error", "Conflict");
+        errorResponse.put("message", "The resource was changed by someone else; reload it and retry");
+        errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+        errorResponse.put("code", "VERSION_CONFLICT");
+        errorResponse.put("id", ex.getIdentifier());
+        errorResponse.put("currentVersion", currentVersion(ex.getPersistentClassName(), ex.getIdentifier()));
+
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
+    private Object currentVersion(String entityClassName, Object id) {
+        if (entityClassName == null || id == null) {
+            return null;
+        }
+        try {
+            return entityManager.getMetamodel().getEntities().stream()
+                    .filter(type -> type.getJavaType().getName().equals(entityClassName))
+                    .findFirst()
+                    .flatMap(type -> entityManager
+                            .createQuery("SELECT e.version FROM " + type.getName() + " e WHERE e.id = :id")
+                            .setParameter("id", id)
+                            .getResultList().stream().findFirst())
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            // Deleted in the meantime, or not a versioned entity; the 409 still stands
+            return null;
+        }
+    }
+}
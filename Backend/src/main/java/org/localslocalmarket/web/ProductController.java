@@ -1,5 +1,6 @@
 package org.localslocalmarket.web;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Optional;
 
@@ -12,13 +13,20 @@ import org.localslocalmarket.security.AuditService;
 import org.localslocalmarket.security.AuthorizationService;
 import org.localslocalmarket.security.InputValidationService;
 import org.localslocalmarket.service.CacheInvalidationService;
+import org.localslocalmarket.service.CatalogSyncService;
+import org.localslocalmarket.service.ProductBulkService;
+import org.localslocalmarket.service.ProductStockOverlay;
+import org.localslocalmarket.service.StockService;
 import org.localslocalmarket.web.dto.PaginationDtos;
 import org.localslocalmarket.web.dto.ProductDtos;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,6 +37,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/products")
@@ -39,18 +50,30 @@ public class ProductController {
     private final AuditService auditService;
     private final InputValidationService inputValidationService;
     private final CacheInvalidationService cacheInvalidationService;
+    private final CatalogSyncService catalogSyncService;
+    private final ProductBulkService productBulkService;
+    private final StockService stockService;
+    private final ProductStockOverlay stockOverlay;
 
     public ProductController(ProductRepository products, ShopRepository shops,
                            AuthorizationService authorizationService,
                            AuditService auditService,
                            InputValidationService inputValidationService,
-                           CacheInvalidationService cacheInvalidationService){
+                           CacheInvalidationService cacheInvalidationService,
+                           CatalogSyncService catalogSyncService,
+                           ProductBulkService productBulkService,
+                           StockService stockService,
+                           ProductStockOverlay stockOverlay){
         this.products = products;
         this.shops = shops;
         this.authorizationService = authorizationService;
         this.auditService = auditService;
         this.inputValidationService = inputValidationService;
         this.cacheInvalidationService = cacheInvalidationService;
+        this.catalogSyncService = catalogSyncService;
+        this.productBulkService = productBulkService;
+        this.stockService = stockService;
+        this.stockOverlay = stockOverlay;
     }
 
     @PostMapping
@@ -116,6 +139,69 @@ public class ProductController {
         }
     }
 
+    /**
+     * Bulk create products for a shop from a CSV (header row required) or NDJSON body.
+     * Rows that fail validation are reported by row number; valid rows are still saved.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(@RequestParam("shopId") Long shopId,
+                                            @RequestParam(value = "format", required = false) String format,
+                                            HttpServletRequest request){
+        try {
+            User actor = authorizationService.getCurrentUserOrThrow();
+            Shop shop = shops.findById(shopId).orElse(null);
+            if (shop == null) {
+                return ResponseEntity.notFound().build();
+            }
+            authorizationService.verifyCanManageShop(shop.getId());
+
+            var result = productBulkService.importProducts(shop, request.getInputStream(),
+                    bulkFormat(format, request.getContentType()));
+
+            auditService.logUserAction(AuditService.AuditEventType.PRODUCT_CREATE,
+                    actor.getId().toString(), "IMPORT", "shop:" + shop.getId() + " rows:" + result.imported());
+            return ResponseEntity.ok(result);
+        } catch (SecurityException e) {
+            auditService.logPermissionDenied("unknown", "/api/products/import", "CREATE");
+            return ResponseEntity.status(401).body("Unauthorized");
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Could not read import body: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams a shop's whole catalog (inactive products included) as CSV or NDJSON,
+     * in the column layout accepted by /import.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam("shopId") Long shopId,
+                                                                @RequestParam(value = "format", defaultValue = "csv") String format){
+        try {
+            authorizationService.verifyCanManageShop(shopId);
+        } catch (SecurityException e) {
+            auditService.logPermissionDenied("unknown", "/api/products/export", "READ");
+            return ResponseEntity.status(401).build();
+        }
+        var bulkFormat = bulkFormat(format, null);
+        StreamingResponseBody body = out -> productBulkService.exportProducts(shopId, bulkFormat, out);
+        return ResponseEntity.ok()
+                .contentType(bulkFormat == ProductBulkService.Format.CSV
+                        ? MediaType.parseMediaType("text/csv")
+                        : ShopController.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"shop-" + shopId + "-products."
+                                + (bulkFormat == ProductBulkService.Format.CSV ? "csv" : "ndjson") + "\"")
+                .body(body);
+    }
+
+    private static ProductBulkService.Format bulkFormat(String format, String contentType) {
+        if (format != null) {
+            return "csv".equalsIgnoreCase(format) ? ProductBulkService.Format.CSV : ProductBulkService.Format.NDJSON;
+        }
+        return contentType != null && contentType.toLowerCase().startsWith("text/csv")
+                ? ProductBulkService.Format.CSV : ProductBulkService.Format.NDJSON;
+    }
+
     @Cacheable(cacheNames = "products_list", key = "'q=' + #q.orElse('') + '&category=' + #category.orElse('') + '&mainCategory=' + #mainCategory.orElse('') + '&subcategory=' + #subcategory.orElse('') + '&minPrice=' + (#minPrice.isPresent() ? #minPrice.get() : '') + '&maxPrice=' + (#maxPrice.isPresent() ? #maxPrice.get() : '') + '&shopId=' + (#shopId.isPresent() ? #shopId.get() : '') + '&page=' + #page + '&size=' + #size")
     @GetMapping
     public PaginationDtos.PaginatedResponse<ProductDtos.ProductResponse> list(@RequestParam("q") Optional<String> q,
@@ -201,15 +287,16 @@ public class ProductController {
             if(!(isOwner || isAdmin)){
                 return ResponseEntity.status(403).body("Forbidden");
             }
-            int current = p.getStockCount() != null ? p.getStockCount() : 0;
-            int next = Math.max(0, current - dec);
-            p.setStockCount(next);
-            products.save(p);
-            
-            // Smart cache invalidation for stock update
-            cacheInvalidationService.onStockUpdated();
-            
-            return ResponseEntity.ok(java.util.Map.of("stockCount", next));
+            StockService.DecrementResult result = stockService.decrement(p.getId(), dec);
+            return switch (result.outcome()) {
+                // Cached listings pick the new count up from the overlay; nothing to evict
+                case DECREMENTED -> ResponseEntity.ok(Map.of("stockCount", result.stockCount()));
+                case OUT_OF_STOCK -> ResponseEntity.status(409).body(Map.of(
+                        "error", "OUT_OF_STOCK",
+                        "requested", dec,
+                        "stockCount", result.stockCount()));
+                case NOT_FOUND -> ResponseEntity.notFound().build();
+            };
         }).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -228,6 +315,18 @@ public class ProductController {
             if(!(isOwner || isAdmin)){
                 return ResponseEntity.status(403).body("Forbidden");
             }
+            boolean stockOnly = req.stockCount() != null && req.title() == null && req.description() == null
+                    && req.price() == null && req.imagePathsJson() == null && req.category() == null
+                    && req.mainCategory() == null && req.subcategory() == null && req.customCategory() == null
+                    && req.isActive() == null;
+            if(stockOnly) {
+                // Cached responses are not evicted for stock, so this write leaves the version they carry alone
+                if(!stockService.setStockCount(p.getId(), req.stockCount(), req.version())) {
+                    throw new ObjectOptimisticLockingFailureException(Product.class, p.getId());
+                }
+                p.setStockCount(req.stockCount());
+                return ResponseEntity.ok(ProductDtos.ProductResponse.fromProduct(p));
+            }
             if(req.title() != null) p.setTitle(req.title());
             if(req.description() != null) p.setDescription(req.description());
             if(req.price() != null) {
@@ -246,7 +345,9 @@ public class ProductController {
             if(req.customCategory() != null) p.setCustomCategory(req.customCategory());
             
             if(req.isActive() != null) p.setIsActive(req.isActive());
-            products.save(p);
+            // p is detached here, so save() merges it and rejects a stale client version with 409
+            if(req.version() != null) p.setVersion(req.version());
+            p.setVersion((req.stockCount() != null ? stockService.saveWithStockCount(p) : products.save(p)).getVersion());
             
             // Smart cache invalidation
             cacheInvalidationService.onProductDataChanged();
@@ -287,7 +388,7 @@ public class ProductController {
     @Cacheable(cacheNames = "products_by_id", key = "#id")
     @GetMapping("/{id}")
     public ResponseEntity<?> get(@PathVariable("id") Long id){
-        return products.findById(id)
+        return products.findWithShopById(id)
                 .<ResponseEntity<?>>map(product -> ResponseEntity.ok(ProductDtos.ProductResponse.fromProduct(product)))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -306,7 +407,8 @@ public class ProductController {
             if(!(isOwner || isAdmin)){
                 return ResponseEntity.status(403).body("Forbidden");
             }
-            products.delete(p);
+            catalogSyncService.deleteProduct(p);
+            stockOverlay.onProductRemoved(p.getId());
             
             // Smart cache invalidation
             cacheInvalidationService.onProductDataChanged();
@@ -330,24 +432,22 @@ public class ProductController {
     
     @Cacheable(cacheNames = "products_by_category", key = "'mainCategory=' + #mainCategory + '&page=' + #page + '&size=' + #size")
     @GetMapping("/by-category/{mainCategory}")
-    public PaginationDtos.PaginatedResponse<ProductDtos.ProductResponse> getProductsByMainCategory(
+    public PaginationDtos.PaginatedResponse<ProductDtos.ProductCardResponse> getProductsByMainCategory(
             @PathVariable("mainCategory") String mainCategory,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size) {
-        Page<Product> productPage = products.findAllActiveByMainCategory(mainCategory, PageRequest.of(page, size));
-        Page<ProductDtos.ProductResponse> responsePage = productPage.map(ProductDtos.ProductResponse::fromProduct);
-        return PaginationDtos.PaginatedResponse.of(responsePage);
+        Page<ProductDtos.ProductCardResponse> cardPage = products.findActiveCardsByMainCategory(mainCategory, PageRequest.of(page, size));
+        return PaginationDtos.PaginatedResponse.of(cardPage);
     }
     
     @Cacheable(cacheNames = "products_by_subcategory", key = "'mainCategory=' + #mainCategory + '&subcategory=' + #subcategory + '&page=' + #page + '&size=' + #size")
     @GetMapping("/by-category/{mainCategory}/{subcategory}")
-    public PaginationDtos.PaginatedResponse<ProductDtos.ProductResponse> getProductsByMainCategoryAndSubcategory(
+    public PaginationDtos.PaginatedResponse<ProductDtos.ProductCardResponse> getProductsByMainCategoryAndSubcategory(
             @PathVariable("mainCategory") String mainCategory,
             @PathVariable("subcategory") String subcategory,
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size) {
-        Page<Product> productPage = products.findAllActiveByMainCategoryAndSubcategory(mainCategory, subcategory, PageRequest.of(page, size));
-        Page<ProductDtos.ProductResponse> responsePage = productPage.map(ProductDtos.ProductResponse::fromProduct);
-        return PaginationDtos.PaginatedResponse.of(responsePage);
+        Page<ProductDtos.ProductCardResponse> cardPage = products.findActiveCardsByMainCategoryAndSubcategory(mainCategory, subcategory, PageRequest.of(page, size));
+        return PaginationDtos.PaginatedResponse.of(cardPage);
     }
 }
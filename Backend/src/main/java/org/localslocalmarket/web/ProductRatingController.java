@@ -6,6 +6,7 @@ import org.localslocalmarket.model.User;
 import org.localslocalmarket.repo.ProductRepository;
 import org.localslocalmarket.repo.ProductRatingRepository;
 import org.localslocalmarket.security.AuthorizationService;
+import org.localslocalmarket.service.RatingSummaryService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -18,11 +19,14 @@ public class ProductRatingController {
     private final ProductRepository products;
     private final ProductRatingRepository ratings;
     private final AuthorizationService auth;
+    private final RatingSummaryService ratingSummaries;
 
-    public ProductRatingController(ProductRepository products, ProductRatingRepository ratings, AuthorizationService auth) {
+    public ProductRatingController(ProductRepository products, ProductRatingRepository ratings, AuthorizationService auth,
+                                   RatingSummaryService ratingSummaries) {
         this.products = products;
         this.ratings = ratings;
         this.auth = auth;
+        this.ratingSummaries = ratingSummaries;
     }
 
     public record RatingRequest(Integer stars) {}
@@ -50,6 +54,7 @@ public class ProductRatingController {
                         });
                 rating.setStars(req.stars());
                 ratings.save(rating);
+                ratingSummaries.evictProduct(product.getId());
                 return ResponseEntity.ok(Map.of("success", true));
             }).orElseGet(() -> ResponseEntity.notFound().build());
         } catch (SecurityException e){
@@ -66,4 +71,15 @@ public class ProductRatingController {
                     return ResponseEntity.ok(RatingSummary.of(count, avg));
                 }).orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    @PostMapping("/ratings/summaries")
+    public ResponseEntity<?> getProductRatingSummaries(@RequestBody java.util.List<Long> productIds){
+        if (productIds == null || productIds.isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        if (productIds.size() > RatingSummaryService.MAX_BATCH) {
+            return ResponseEntity.badRequest().body("At most " + RatingSummaryService.MAX_BATCH + " ids per request");
+        }
+        return ResponseEntity.ok(ratingSummaries.productSummaries(productIds));
+    }
 }
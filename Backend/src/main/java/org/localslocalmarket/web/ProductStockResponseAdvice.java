@@ -0,0 +1,88 @@
+package org.localslocalmarket.web;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.localslocalmarket.config.CacheHits;
+import org.localslocalmarket.service.ProductStockOverlay;
+import org.localslocalmarket.web.dto.PaginationDtos;
+import org.localslocalmarket.web.dto.ProductDtos;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Applies ProductStockOverlay to product responses served from the product caches,
+ * so cached listings show current stock without being evicted. Responses just read
+ * from the database are sent as they are and seed the overlay instead.
+ */
+@ControllerAdvice(assignableTypes = ProductController.class)
+public class ProductStockResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ProductStockOverlay stockOverlay;
+
+    public ProductStockResponseAdvice(ProductStockOverlay stockOverlay) {
+        this.stockOverlay = stockOverlay;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        List<?> items;
+        if (body instanceof ProductDtos.ProductResponse product) {
+            items = List.of(product);
+        } else if (body instanceof PaginationDtos.PaginatedResponse<?> page && page.content() != null) {
+            items = page.content();
+        } else {
+            return body;
+        }
+        if (!CacheHits.inCurrentRequest()) {
+            for (Object item : items) {
+                stockOverlay.onStockRead(idOf(item), stockOf(item));
+            }
+            return body;
+        }
+        Map<Long, Integer> current = stockOverlay.stockFor(
+                items.stream().map(ProductStockResponseAdvice::idOf).filter(Objects::nonNull).toList());
+        if (body instanceof PaginationDtos.PaginatedResponse<?> page) {
+            return new PaginationDtos.PaginatedResponse<>(
+                    items.stream().map(item -> withStock(item, current)).toList(),
+                    page.pagination());
+        }
+        return withStock(body, current);
+    }
+
+    private static Long idOf(Object item) {
+        if (item instanceof ProductDtos.ProductResponse p) return p.id();
+        if (item instanceof ProductDtos.ProductCardResponse c) return c.id();
+        return null;
+    }
+
+    private static Integer stockOf(Object item) {
+        if (item instanceof ProductDtos.ProductResponse p) return p.stockCount();
+        if (item instanceof ProductDtos.ProductCardResponse c) return c.stockCount();
+        return null;
+    }
+
+    // Cached objects are shared between requests, so changed entries are copied, never mutated
+    private static Object withStock(Object item, Map<Long, Integer> current) {
+        Integer count = current.get(idOf(item));
+        if (count == null || count.equals(stockOf(item))) {
+            return item;
+        }
+        if (item instanceof ProductDtos.ProductResponse p) return p.withStockCount(count);
+        if (item instanceof ProductDtos.ProductCardResponse c) return c.withStockCount(count);
+        return item;
+    }
+}
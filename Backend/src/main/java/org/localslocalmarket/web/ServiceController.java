@@ -10,12 +10,14 @@ import org.localslocalmarket.model.ServiceStatus;
 import org.localslocalmarket.model.Shop;
 import org.localslocalmarket.repo.ShopRepository;
 import org.localslocalmarket.security.AuthorizationService;
+import org.localslocalmarket.service.ServiceQuery;
 import org.localslocalmarket.service.ServiceService;
 import org.localslocalmarket.web.dto.ServiceDtos;
 import org.localslocalmarket.web.dto.SuggestionDtos;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -42,26 +44,19 @@ public class ServiceController {
     @Autowired
     private AuthorizationService authorizationService;
     
+    /**
+     * Active service cards, a keyset page at a time (see ServiceDtos.ServiceCursorPage).
+     * limit is capped at ServiceService.MAX_CURSOR_LIMIT.
+     */
     @GetMapping
-    public ResponseEntity<List<Service>> getAllServices(
+    public ResponseEntity<ServiceDtos.ServiceCursorPage> getAllServices(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String search) {
-        
-        List<Service> services;
-        if (category != null && status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            services = serviceService.getServicesByCategoryAndStatus(category, serviceStatus);
-        } else if (category != null) {
-            services = serviceService.getServicesByCategory(category);
-        } else if (status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            services = serviceService.getServicesByStatus(serviceStatus);
-        } else {
-            services = serviceService.getAllServices();
-        }
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         
-        return ResponseEntity.ok(services);
+        return ResponseEntity.ok(serviceService.getServiceCards(cursor, limit, null, category, parseStatus(status), search));
     }
     
     @GetMapping("/{id}")
@@ -71,19 +66,18 @@ public class ServiceController {
     }
     
     @GetMapping("/shop/{shopId}")
-    public ResponseEntity<List<Service>> getServicesByShop(
+    public ResponseEntity<ServiceDtos.ServiceCursorPage> getServicesByShop(
             @PathVariable Long shopId,
-            @RequestParam(required = false) String status) {
-        
-        List<Service> services;
-        if (status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            services = serviceService.getServicesByShopAndStatus(shopId, serviceStatus);
-        } else {
-            services = serviceService.getServicesByShop(shopId);
-        }
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         
-        return ResponseEntity.ok(services);
+        return ResponseEntity.ok(serviceService.getServiceCards(cursor, limit, shopId, null, parseStatus(status), null));
+    }
+    
+    // Unknown values fail ServiceStatus.valueOf and are answered with 400
+    private static ServiceStatus parseStatus(String status) {
+        return status != null ? ServiceStatus.valueOf(status.toUpperCase()) : null;
     }
     
     @GetMapping("/suggest")
@@ -151,9 +145,12 @@ public class ServiceController {
             if (req.customCategory() != null) existingService.setCustomCategory(req.customCategory());
             if (req.status() != null) existingService.setStatus(ServiceStatus.valueOf(req.status()));
             if (req.isActive() != null) existingService.setIsActive(req.isActive());
+            if (req.version() != null) existingService.setVersion(req.version());
             
             Service updatedService = serviceService.updateService(id, existingService);
             return ResponseEntity.ok(updatedService);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw e; // 409 with the current version (OptimisticLockExceptionHandler)
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
@@ -186,6 +183,39 @@ public class ServiceController {
         }
     }
     
+    /**
+     * Availability toggle (AVAILABLE / NOT_AVAILABLE). Writes only the status
+     * column; listing caches are left alone and pick the change up from the
+     * in-memory availability index.
+     */
+    @PatchMapping("/{id}/status")
+    public ResponseEntity<?> updateStatus(@PathVariable Long id,
+                                          @RequestBody @Validated ServiceDtos.UpdateStatusRequest req) {
+        try {
+            authorizationService.getCurrentUserOrThrow();
+            
+            ServiceStatus status;
+            try {
+                status = ServiceStatus.valueOf(req.status().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Unknown status: " + req.status());
+            }
+            
+            Long shopId = serviceService.getShopIdOfService(id).orElse(null);
+            if (shopId == null) {
+                return ResponseEntity.notFound().build();
+            }
+            authorizationService.verifyCanManageShop(shopId);
+            
+            if (!serviceService.updateStatus(id, status)) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of("id", id, "status", status));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized");
+        }
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteService(@PathVariable Long id,
                                          @RequestHeader("Authorization") String token) {
@@ -194,7 +224,7 @@ public class ServiceController {
             var actor = authorizationService.getCurrentUserOrThrow();
 
             // Load service and verify ownership/admin before deletion
-            Service existingService = serviceService.getServiceById(id);
+            Service existingService = serviceService.getServiceWithShopAndOwnerById(id);
             if (existingService == null) {
                 return ResponseEntity.notFound().build();
             }
@@ -223,7 +253,7 @@ public class ServiceController {
      * Get paginated services with optional filters
      */
     @GetMapping("/paginated")
-    public ResponseEntity<ServicePageResponse> getServicesPaginated(
+    public ResponseEntity<ServicePageResponse<?>> getServicesPaginated(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String sortBy,
@@ -236,47 +266,15 @@ public class ServiceController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice) {
         
-        // Validate pagination parameters
-        if (page < 0) page = 0;
-        if (size < 1) size = 20;
-        if (size > 100) size = 100; // Limit max page size
-        
-        ServicePageResponse response;
-        
-        // Use advanced filtering if multiple filters are provided
-        if (shopId != null || status != null || category != null || subcategory != null || search != null) {
-            ServiceStatus serviceStatus = status != null ? ServiceStatus.valueOf(status.toUpperCase()) : null;
-            response = serviceService.getServicesWithFiltersPaginated(
-                shopId, serviceStatus, category, subcategory, search, page, size, sortBy, sortDir);
-        }
-        // Use price range filtering
-        else if (minPrice != null || maxPrice != null) {
-            BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
-            BigDecimal max = maxPrice != null ? maxPrice : new BigDecimal("999999.99");
-            response = serviceService.getServicesByPriceRangePaginated(min, max, page, size, sortBy, sortDir);
-        }
-        // Use status filtering (only if no other filters)
-        else if (status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            response = serviceService.getServicesByStatusPaginated(serviceStatus, page, size, sortBy, sortDir);
-        }
-        // Use category filtering (only if no other filters)
-        else if (category != null) {
-            response = serviceService.getServicesByCategoryPaginated(category, page, size, sortBy, sortDir);
-        }
-        // Default: get all services
-        else {
-            response = serviceService.getServicesPaginated(page, size, sortBy, sortDir);
-        }
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(serviceService.findServices(ServiceQuery.of(
+                shopId, parseStatus(status), category, subcategory, search, minPrice, maxPrice, sortBy, sortDir, page, size)));
     }
     
     /**
      * Get paginated services by shop
      */
     @GetMapping("/shop/{shopId}/paginated")
-    public ResponseEntity<ServicePageResponse> getServicesByShopPaginated(
+    public ResponseEntity<ServicePageResponse<?>> getServicesByShopPaginated(
             @PathVariable Long shopId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -286,37 +284,15 @@ public class ServiceController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice) {
         
-        // Validate pagination parameters
-        if (page < 0) page = 0;
-        if (size < 1) size = 20;
-        if (size > 100) size = 100;
-        
-        ServicePageResponse response;
-        
-        // Use price range filtering for shop services
-        if (minPrice != null || maxPrice != null) {
-            BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
-            BigDecimal max = maxPrice != null ? maxPrice : new BigDecimal("999999.99");
-            response = serviceService.getServicesByShopAndPriceRangePaginated(shopId, min, max, page, size, sortBy, sortDir);
-        }
-        // Use status filtering for shop services
-        else if (status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            response = serviceService.getServicesByShopAndStatusPaginated(shopId, serviceStatus, page, size, sortBy, sortDir);
-        }
-        // Default: get all shop services
-        else {
-            response = serviceService.getServicesByShopPaginated(shopId, page, size, sortBy, sortDir);
-        }
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(serviceService.findServices(ServiceQuery.of(
+                shopId, parseStatus(status), null, null, null, minPrice, maxPrice, sortBy, sortDir, page, size)));
     }
     
     /**
      * Get paginated services by category
      */
     @GetMapping("/category/{category}/paginated")
-    public ResponseEntity<ServicePageResponse> getServicesByCategoryPaginated(
+    public ResponseEntity<ServicePageResponse<?>> getServicesByCategoryPaginated(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -326,37 +302,15 @@ public class ServiceController {
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice) {
         
-        // Validate pagination parameters
-        if (page < 0) page = 0;
-        if (size < 1) size = 20;
-        if (size > 100) size = 100;
-        
-        ServicePageResponse response;
-        
-        // Use price range filtering for category services
-        if (minPrice != null || maxPrice != null) {
-            BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
-            BigDecimal max = maxPrice != null ? maxPrice : new BigDecimal("999999.99");
-            response = serviceService.getServicesByCategoryAndPriceRangePaginated(category, min, max, page, size, sortBy, sortDir);
-        }
-        // Use status filtering for category services
-        else if (status != null) {
-            ServiceStatus serviceStatus = ServiceStatus.valueOf(status.toUpperCase());
-            response = serviceService.getServicesByCategoryAndStatusPaginated(category, serviceStatus, page, size, sortBy, sortDir);
-        }
-        // Default: get all category services
-        else {
-            response = serviceService.getServicesByCategoryPaginated(category, page, size, sortBy, sortDir);
-        }
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(serviceService.findServices(ServiceQuery.of(
+                null, parseStatus(status), category, null, null, minPrice, maxPrice, sortBy, sortDir, page, size)));
     }
     
     /**
      * Get paginated services with advanced search
      */
     @GetMapping("/search/paginated")
-    public ResponseEntity<ServicePageResponse> searchServicesPaginated(
+    public ResponseEntity<ServicePageResponse<?>> searchServicesPaginated(
             @RequestParam(required = false) String q, // search term
             @RequestParam(required = false) Long shopId,
             @RequestParam(required = false) String status,
@@ -369,16 +323,7 @@ public class ServiceController {
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String sortDir) {
         
-        // Validate pagination parameters
-        if (page < 0) page = 0;
-        if (size < 1) size = 20;
-        if (size > 100) size = 100;
-        
-        ServiceStatus serviceStatus = status != null ? ServiceStatus.valueOf(status.toUpperCase()) : null;
-        
-        ServicePageResponse response = serviceService.getServicesWithFiltersPaginated(
-            shopId, serviceStatus, category, subcategory, q, page, size, sortBy, sortDir);
-        
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(serviceService.findServices(ServiceQuery.of(
+                shopId, parseStatus(status), category, subcategory, q, minPrice, maxPrice, sortBy, sortDir, page, size)));
     }
 }
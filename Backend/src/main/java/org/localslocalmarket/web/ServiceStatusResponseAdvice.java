@@ -0,0 +1,93 @@
+package org.localslocalmarket.web;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.localslocalmarket.config.CacheHits;
+import org.localslocalmarket.dto.ServicePageResponse;
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.model.ServiceStatus;
+import org.localslocalmarket.service.ServiceAvailabilityIndex;
+import org.localslocalmarket.web.dto.ServiceDtos;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Applies ServiceAvailabilityIndex to service responses served from the listing
+ * caches, so availability toggles show up without evicting them. Responses just
+ * read from the database are sent as they are and seed the index instead.
+ */
+@ControllerAdvice(assignableTypes = ServiceController.class)
+public class ServiceStatusResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private final ServiceAvailabilityIndex availabilityIndex;
+
+    public ServiceStatusResponseAdvice(ServiceAvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        List<?> items;
+        if (body instanceof ServicePageResponse<?> page && page.getContent() != null) {
+            items = page.getContent();
+        } else if (body instanceof List<?> list) {
+            items = list;
+        } else if (body instanceof Service service) {
+            items = List.of(service);
+        } else {
+            return body;
+        }
+        if (!CacheHits.inCurrentRequest()) {
+            for (Object item : items) {
+                availabilityIndex.onStatusRead(idOf(item), statusOf(item));
+            }
+            return body;
+        }
+        Map<Long, ServiceStatus> current = availabilityIndex.statusFor(
+                items.stream().map(ServiceStatusResponseAdvice::idOf).filter(Objects::nonNull).toList());
+        List<Object> updated = items.stream().map(item -> withStatus(item, current)).toList();
+        if (body instanceof ServicePageResponse<?> page) {
+            return new ServicePageResponse<>(updated, page.getPage(), page.getSize(),
+                    page.getTotalElements(), page.getTotalPages(), page.isFirst(), page.isLast(),
+                    page.isHasNext(), page.isHasPrevious(), page.getNumberOfElements());
+        }
+        return body instanceof List<?> ? updated : updated.get(0);
+    }
+
+    private static Long idOf(Object item) {
+        if (item instanceof ServiceDtos.ServiceCardResponse card) return card.id();
+        if (item instanceof Service service) return service.getId();
+        return null;
+    }
+
+    private static ServiceStatus statusOf(Object item) {
+        if (item instanceof ServiceDtos.ServiceCardResponse card) return card.status();
+        if (item instanceof Service service) return service.getStatus();
+        return null;
+    }
+
+    // Cached objects are shared between requests, so changed entries are copied, never mutated
+    private static Object withStatus(Object item, Map<Long, ServiceStatus> current) {
+        ServiceStatus status = current.get(idOf(item));
+        if (status == null || status == statusOf(item)) {
+            return item;
+        }
+        if (item instanceof ServiceDtos.ServiceCardResponse card) return card.withStatus(status);
+        if (item instanceof Service service) return service.withStatus(status);
+        return item;
+    }
+}
@@ -10,21 +10,41 @@ import org.localslocalmarket.security.AuthorizationService;
 import org.localslocalmarket.security.AuditService;
 import org.localslocalmarket.security.InputValidationService;
 import org.localslocalmarket.service.CacheInvalidationService;
+import org.localslocalmarket.service.CatalogSyncService;
 import org.localslocalmarket.service.SearchEngineNotificationService;
 import org.localslocalmarket.service.EmailService;
+import org.localslocalmarket.service.ShopHoursIndex;
 import org.localslocalmarket.service.SitemapService;
 import org.localslocalmarket.web.dto.ShopDtos;
 import org.localslocalmarket.web.dto.SuggestionDtos;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 
 @RestController
@@ -41,6 +61,11 @@ public class ShopController {
     private final SearchEngineNotificationService searchEngineNotificationService;
     private final SitemapService sitemapService;
     private final EmailService emailService;
+    private final CatalogSyncService catalogSyncService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final ShopHoursIndex shopHoursIndex;
+    private final CacheManager cacheManager;
 
     public ShopController(ShopRepository shops, UserRepository users, 
                          AuthorizationService authorizationService, 
@@ -51,7 +76,12 @@ public class ShopController {
                          CacheInvalidationService cacheInvalidationService,
                          SearchEngineNotificationService searchEngineNotificationService,
                          SitemapService sitemapService,
-                         EmailService emailService){
+                         EmailService emailService,
+                         CatalogSyncService catalogSyncService,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         ShopHoursIndex shopHoursIndex,
+                         CacheManager cacheManager){
         this.shops = shops;
         this.users = users;
         this.authorizationService = authorizationService;
@@ -63,6 +93,12 @@ public class ShopController {
         this.searchEngineNotificationService = searchEngineNotificationService;
         this.sitemapService = sitemapService;
         this.emailService = emailService;
+        this.catalogSyncService = catalogSyncService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.shopHoursIndex = shopHoursIndex;
+        this.cacheManager = cacheManager;
     }
 
     @PostMapping
@@ -108,10 +144,12 @@ public class ShopController {
             s.setInstagram(validatedInstagram);
             s.setTwitter(validatedTwitter);
             s.setBusinessHoursJson(req.businessHoursJson());
+            s.setTimeZone(validateTimeZone(req.timeZone()));
             if (req.offeringType() != null) s.setOfferingType(normalizeOfferingType(req.offeringType()));
             if (req.showcasePriority() != null) s.setShowcasePriority(normalizeShowcasePriority(req.showcasePriority()));
             
-            shops.save(s);
+            s = shops.save(s);
+            shopHoursIndex.onShopChanged(s);
             
             // Smart cache invalidation
             cacheInvalidationService.onShopDataChanged();
@@ -187,29 +225,86 @@ public class ShopController {
 
 
 
-    @Cacheable(cacheNames = "shops_list", key = "'q=' + #q.orElse('') + '&category=' + #category.orElse('') + '&page=' + #page + '&size=' + #size")
+    // Open-hours listings change by the minute, so only the unfiltered pages are cached
+    @Cacheable(cacheNames = "shops_list", key = "'q=' + #q.orElse('') + '&category=' + #category.orElse('') + '&page=' + #page + '&size=' + #size",
+               condition = "!#openNow.orElse(false) && #openAt.isEmpty()")
     @GetMapping
-    public Page<ShopDtos.ShopResponse> list(@RequestParam("q") Optional<String> q,
-                                           @RequestParam("category") Optional<String> category,
-                                           @RequestParam(value = "page", defaultValue = "0") int page,
-                                           @RequestParam(value = "size", defaultValue = "20") int size){
-        Specification<Shop> spec = Specification.where(null);
+    public ResponseEntity<?> list(@RequestParam("q") Optional<String> q,
+                                  @RequestParam("category") Optional<String> category,
+                                  @RequestParam(value = "page", defaultValue = "0") int page,
+                                  @RequestParam(value = "size", defaultValue = "20") int size,
+                                  @RequestParam("openNow") Optional<Boolean> openNow,
+                                  @RequestParam("openAt") Optional<String> openAt){
+        PageRequest pageable = PageRequest.of(page, size);
+        if(openAt.isPresent() || openNow.orElse(false)){
+            Instant at = openAt.isPresent() ? parseOpenAt(openAt.get()) : Instant.now();
+            if(at == null){
+                return ResponseEntity.badRequest().body("openAt must be an ISO-8601 instant, e.g. 2025-01-31T09:30:00Z");
+            }
+            return ResponseEntity.ok(openShopsPage(q, category, pageable, at));
+        }
         if(q.isPresent()){
             String like = "%" + q.get().toLowerCase() + "%";
-            spec = spec.and((root, cq, cb) -> 
-                cb.or(
-                    cb.like(cb.lower(root.get("name")), like),
-                    cb.like(cb.lower(root.get("description")), like),
-                    cb.like(cb.lower(root.get("addressLine")), like),
-                    cb.like(cb.lower(root.get("category")), like)
-                )
-            );
+            return ResponseEntity.ok(category.isPresent()
+                    ? shops.searchCardsByCategory(like, category.get(), pageable)
+                    : shops.searchCards(like, pageable));
         }
         if(category.isPresent()){
-            spec = spec.and((root, cq, cb) -> cb.equal(root.get("category"), category.get()));
+            return ResponseEntity.ok(shops.findCardsByCategory(category.get(), pageable));
+        }
+        return ResponseEntity.ok(shops.findCards(pageable));
+    }
+
+    /**
+     * One page of the listing restricted to shops open at the given instant (in each
+     * shop's own time zone). The unfiltered id list is cached in "shop_scope_ids",
+     * ShopHoursIndex filters it, and only the page's cards are read.
+     */
+    private Page<ShopDtos.ShopCardResponse> openShopsPage(Optional<String> q, Optional<String> category,
+                                                         PageRequest pageable, Instant at){
+        String like = q.map(v -> "%" + v.toLowerCase() + "%").orElse(null);
+        List<Long> scopeIds;
+        if(like != null){
+            scopeIds = category.isPresent()
+                    ? scopeIds("q=" + like + "&category=" + category.get(), () -> shops.searchIdsByCategory(like, category.get()))
+                    : scopeIds("q=" + like, () -> shops.searchIds(like));
+        } else {
+            scopeIds = category.isPresent()
+                    ? scopeIds("category=" + category.get(), () -> shops.findIdsByCategory(category.get()))
+                    : scopeIds("all", shops::findIdsOrderById);
+        }
+
+        List<Long> open = shopHoursIndex.filterOpen(scopeIds, at);
+        int from = (int) Math.min(pageable.getOffset(), open.size());
+        int to = Math.min(from + pageable.getPageSize(), open.size());
+        List<Long> pageIds = open.subList(from, to);
+
+        List<ShopDtos.ShopCardResponse> content = List.of();
+        if(!pageIds.isEmpty()){
+            Map<Long, ShopDtos.ShopCardResponse> byId = new HashMap<>();
+            for(ShopDtos.ShopCardResponse card : shops.findCardsByIdIn(pageIds)){
+                byId.put(card.id(), card);
+            }
+            content = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        }
+        return new PageImpl<>(content, pageable, open.size());
+    }
+
+    private List<Long> scopeIds(String key, Supplier<List<Long>> loader){
+        Cache cache = cacheManager.getCache("shop_scope_ids");
+        if(cache == null){
+            return loader.get();
+        }
+        return cache.get(key, loader::get);
+    }
+
+    // null when unreadable; list() answers 400 itself since the catch-all advices would turn an exception into 500
+    private Instant parseOpenAt(String raw){
+        try {
+            return Instant.parse(raw.trim());
+        } catch (DateTimeException e) {
+            return null;
         }
-        Page<Shop> shopPage = shops.findAll(spec, PageRequest.of(page, size));
-        return shopPage.map(ShopDtos.ShopResponse::fromShop);
     }
 
     @GetMapping("/suggest")
@@ -230,12 +325,11 @@ public class ShopController {
     // Simple paginated endpoint for landing page
     @Cacheable(cacheNames = "shops_paginated", key = "'simple_page=' + #page + '&size=' + #size")
     @GetMapping("/paginated")
-    public Page<ShopDtos.ShopResponse> getPaginatedShops(
+    public Page<ShopDtos.ShopCardResponse> getPaginatedShops(
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size) {
         
-        Page<Shop> shopPage = shops.findAll(PageRequest.of(page, size));
-        return shopPage.map(ShopDtos.ShopResponse::fromShop);
+        return shops.findCards(PageRequest.of(page, size));
     }
 
     // Enhanced paginated endpoint with ratings for landing page
@@ -245,77 +339,67 @@ public class ShopController {
             @RequestParam(value = "page", defaultValue = "0") int page,
             @RequestParam(value = "size", defaultValue = "20") int size) {
         
-        Page<Shop> shopPage = shops.findAll(PageRequest.of(page, size));
-        return shopPage.map(shop -> {
-            // Temporarily disable ratings calculation to debug 500 error
-            Double avgRating = 0.0;
-            Long totalReviews = 0L;
-            
-            // TODO: Re-enable ratings calculation once backend is stable
-            /*
-            try {
-                // Get authenticated ratings
-                long authCount = shopRatings.countByShop_Id(shop.getId());
-                Double authAvg = shopRatings.averageStarsByShop(shop.getId());
-                
-                // Get unauthenticated ratings
-                long unauthCount = unauthReviews.countByShopId(shop.getId());
-                Double unauthAvg = unauthReviews.averageStarsByShopId(shop.getId());
-                
-                // Calculate combined totals
-                totalReviews = authCount + unauthCount;
-                
-                if (totalReviews > 0) {
-                    double authTotal = authCount * (authAvg != null ? authAvg : 0.0);
-                    double unauthTotal = unauthCount * (unauthAvg != null ? unauthAvg : 0.0);
-                    avgRating = Math.round(((authTotal + unauthTotal) / totalReviews) * 10.0) / 10.0;
+        // Ratings come from shop_rating_aggregate in the same query, no per-shop lookups
+        return shops.findCardsWithRatings(PageRequest.of(page, size));
+    }
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * All shops for client-side filtering, streamed straight from a database cursor.
+     * The default body keeps the {"content": [...]} shape; pass format=ndjson (or
+     * Accept: application/x-ndjson) to get one shop per line instead.
+     */
+    @GetMapping("/all")
+    public ResponseEntity<StreamingResponseBody> getAllShops(
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = "Accept", required = false) String accept){
+        boolean ndjson = "ndjson".equalsIgnoreCase(format)
+                || (accept != null && accept.contains(APPLICATION_NDJSON.toString()));
+
+        StreamingResponseBody body = out -> readOnlyTx.executeWithoutResult(status -> {
+            var rowWriter = objectMapper.writerFor(ShopDtos.ShopResponse.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (var rows = shops.streamAllShopResponses();
+                 JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                if (ndjson) {
+                    gen.setRootValueSeparator(new SerializedString("\n"));
+                } else {
+                    gen.writeStartObject();
+                    gen.writeArrayFieldStart("content");
                 }
-            } catch (Exception e) {
-                // If there's any error accessing ratings, set defaults
-                avgRating = 0.0;
-                totalReviews = 0L;
+                var it = rows.iterator();
+                while (it.hasNext()) {
+                    rowWriter.writeValue(gen, it.next());
+                }
+                if (ndjson) {
+                    gen.writeRaw('\n');
+                } else {
+                    gen.writeEndArray();
+                    gen.writeEndObject();
+                }
+            } catch (java.io.IOException e) {
+                // Client went away mid-stream; the transaction is rolled back and the cursor closed
+                throw new java.io.UncheckedIOException(e);
             }
-            */
-            
-            return new ShopDtos.ShopResponseWithRatings(
-                shop.getId(),
-                shop.getName(),
-                shop.getDescription(),
-                shop.getCategory(),
-                shop.getAddressLine(),
-                shop.getLat(),
-                shop.getLng(),
-                shop.getLogoPath(),
-                shop.getCoverPath(),
-                shop.getPhone(),
-                shop.getWebsite(),
-                shop.getEmail(),
-                shop.getFacebook(),
-                shop.getInstagram(),
-                shop.getTwitter(),
-                shop.getAdsImagePathsJson(),
-                shop.getAdsEnabled(),
-                shop.getBusinessHoursJson(),
-                shop.getCreatedAt(),
-                null, // Avoid lazy-loading owner to prevent LazyInitializationException in paginated listing
-                shop.getIsActive(),
-                avgRating,
-                totalReviews
-            );
         });
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
-    @Cacheable(cacheNames = "all_shops", key = "'all'")
-    @GetMapping("/all")
-    public ResponseEntity<?> getAllShops(){
+    /**
+     * Incremental companion to /all: everything that changed after the given cursor
+     * (epoch millis, as returned by the previous call). since=0 asks for a resync.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(value = "since", defaultValue = "0") long since){
         try {
-            // Fetch all shops for client-side filtering
-            var allShops = shops.findAll().stream()
-                    .map(ShopDtos.ShopResponse::fromShop)
-                    .toList();
-            return ResponseEntity.ok(Map.of("content", allShops));
+            return ResponseEntity.ok(catalogSyncService.changesSince(since));
         } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error fetching shops: " + e.getMessage());
+            return ResponseEntity.status(500).body("Error fetching shop changes: " + e.getMessage());
         }
     }
 
@@ -411,10 +495,15 @@ public class ShopController {
                 if(req.adsImagePathsJson() != null) shop.setAdsImagePathsJson(req.adsImagePathsJson());
                 if(req.adsEnabled() != null) shop.setAdsEnabled(req.adsEnabled());
                 if(req.businessHoursJson() != null) shop.setBusinessHoursJson(req.businessHoursJson());
+                if(req.timeZone() != null) shop.setTimeZone(validateTimeZone(req.timeZone()));
                 if(req.isActive() != null) shop.setIsActive(req.isActive());
                 if(req.offeringType() != null) shop.setOfferingType(normalizeOfferingType(req.offeringType()));
                 if(req.showcasePriority() != null) shop.setShowcasePriority(normalizeShowcasePriority(req.showcasePriority()));
-                shops.save(shop);
+                // A stale client version fails the merge and is answered with 409 (OptimisticLockExceptionHandler)
+                if(req.version() != null) shop.setVersion(req.version());
+                // The shop was loaded outside a transaction; the merged copy carries the recompiled hours
+                Shop saved = shops.save(shop);
+                shopHoursIndex.onShopChanged(saved);
                 
                 // Smart cache invalidation
                 cacheInvalidationService.onShopDataChanged();
@@ -428,6 +517,18 @@ public class ShopController {
         } catch (SecurityException e) {
             auditService.logPermissionDenied("unknown", "/api/shops/" + slug, "UPDATE");
             return ResponseEntity.status(401).body("Unauthorized");
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+        }
+    }
+
+    // Blank clears the zone (back to llm.shops.default-time-zone); unknown ids throw, which create() and update() answer with 400
+    private String validateTimeZone(String raw) {
+        if (raw == null || raw.isBlank()) return null;
+        try {
+            return ZoneId.of(raw.trim()).getId();
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Unknown time zone: " + raw);
         }
     }
 
@@ -556,7 +657,8 @@ public class ShopController {
                 if(!(isOwner || isAdmin)){
                     return ResponseEntity.status(403).body("Forbidden");
                 }
-                shops.delete(shop);
+                catalogSyncService.deleteShop(shop);
+                shopHoursIndex.onShopRemoved(shop.getId());
                 
                 // Smart cache invalidation
                 cacheInvalidationService.onShopDataChanged();
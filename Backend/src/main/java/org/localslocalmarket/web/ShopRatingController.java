@@ -6,6 +6,8 @@ import org.localslocalmarket.model.User;
 import org.localslocalmarket.repo.ShopRatingRepository;
 import org.localslocalmarket.repo.ShopRepository;
 import org.localslocalmarket.security.AuthorizationService;
+import org.localslocalmarket.service.RatingSummaryService;
+import org.localslocalmarket.service.ShopRatingAggregateService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -18,11 +20,16 @@ public class ShopRatingController {
     private final ShopRepository shops;
     private final ShopRatingRepository ratings;
     private final AuthorizationService auth;
+    private final ShopRatingAggregateService ratingAggregates;
+    private final RatingSummaryService ratingSummaries;
 
-    public ShopRatingController(ShopRepository shops, ShopRatingRepository ratings, AuthorizationService auth) {
+    public ShopRatingController(ShopRepository shops, ShopRatingRepository ratings, AuthorizationService auth,
+                                ShopRatingAggregateService ratingAggregates, RatingSummaryService ratingSummaries) {
         this.shops = shops;
         this.ratings = ratings;
         this.auth = auth;
+        this.ratingAggregates = ratingAggregates;
+        this.ratingSummaries = ratingSummaries;
     }
 
     public record RatingRequest(Integer stars) {}
@@ -48,8 +55,10 @@ public class ShopRatingController {
                             r.setShop(shop);
                             return r;
                         });
+                Integer previousStars = rating.getId() != null ? rating.getStars() : null;
                 rating.setStars(req.stars());
-                ratings.save(rating);
+                ratingAggregates.saveAuthenticatedRating(rating, previousStars);
+                ratingSummaries.evictShop(shop.getId());
                 return ResponseEntity.ok(Map.of("success", true));
             }).orElseGet(() -> ResponseEntity.notFound().build());
         } catch (SecurityException e){
@@ -66,4 +75,15 @@ public class ShopRatingController {
                     return ResponseEntity.ok(RatingSummary.of(count, avg));
                 }).orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    @PostMapping("/ratings/summaries")
+    public ResponseEntity<?> getShopRatingSummaries(@RequestBody java.util.List<Long> shopIds){
+        if (shopIds == null || shopIds.isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+        if (shopIds.size() > RatingSummaryService.MAX_BATCH) {
+            return ResponseEntity.badRequest().body("At most " + RatingSummaryService.MAX_BATCH + " ids per request");
+        }
+        return ResponseEntity.ok(ratingSummaries.shopSummaries(shopIds));
+    }
 }
@@ -10,6 +10,7 @@ import org.localslocalmarket.model.Service;
 import org.localslocalmarket.model.Shop;
 import org.localslocalmarket.repo.ShopRepository;
 import org.localslocalmarket.repository.ServiceRepository;
+import org.localslocalmarket.security.CrawlerBudgets;
 import org.localslocalmarket.service.SearchEngineNotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
@@ -17,6 +18,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -46,6 +48,7 @@ public class SitemapController {
      */
     @Cacheable(cacheNames = "sitemap", key = "'sitemap_index'")
     @GetMapping(value = "/sitemap.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    @Transactional(readOnly = true)
     public ResponseEntity<String> generateSitemapIndex() {
         try {
             // Get total shop count
@@ -156,6 +159,7 @@ public class SitemapController {
      */
     @Cacheable(cacheNames = "sitemap", key = "'shops_' + #page")
     @GetMapping(value = "/sitemap/shops-{page}.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    @Transactional(readOnly = true)
     public ResponseEntity<String> generateShopSitemap(@PathVariable("page") int page) {
         try {
             System.out.println("Generating shop sitemap for page: " + page);
@@ -206,6 +210,7 @@ public class SitemapController {
      */
     @Cacheable(cacheNames = "sitemap", key = "'services_' + #page")
     @GetMapping(value = "/sitemap/services-{page}.xml", produces = MediaType.APPLICATION_XML_VALUE)
+    @Transactional(readOnly = true)
     public ResponseEntity<String> generateServicesSitemap(@PathVariable("page") int page) {
         try {
             String currentDate = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
@@ -300,18 +305,18 @@ public class SitemapController {
             
             // Crawl delay to be respectful to the server
             robots.append("# Crawl delay to be respectful to the server\n");
-            robots.append("Crawl-delay: 1\n\n");
+            // Same delays RateLimitFilter budgets crawlers by (CrawlerBudgets)
+            robots.append("Crawl-delay: ").append(CrawlerBudgets.DEFAULT_CRAWL_DELAY).append("\n\n");
             
             // Special instructions for major search engines
             robots.append("# Special instructions for major search engines\n");
-            robots.append("User-agent: Googlebot\n");
-            robots.append("Crawl-delay: 1\n\n");
-            
-            robots.append("User-agent: Bingbot\n");
-            robots.append("Crawl-delay: 2\n\n");
-            
-            robots.append("User-agent: Slurp\n");
-            robots.append("Crawl-delay: 2\n");
+            String separator = "";
+            for (Map.Entry<String, Integer> crawler : CrawlerBudgets.CRAWL_DELAYS.entrySet()) {
+                robots.append(separator);
+                robots.append("User-agent: ").append(crawler.getKey()).append("\n");
+                robots.append("Crawl-delay: ").append(crawler.getValue()).append("\n");
+                separator = "\n";
+            }
             
             return ResponseEntity.ok()
                     .header("Content-Type", "text/plain; charset=utf-8")
@@ -393,6 +398,7 @@ public class SitemapController {
      * Get sitemap statistics for monitoring
      */
     @GetMapping("/sitemap/stats")
+    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> getSitemapStats() {
         try {
             long totalShops = shopRepository.count();
@@ -0,0 +1,115 @@
+package org.localslocalmarket.web;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.localslocalmarket.config.SqlRequestStats;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements and JDBC time of each request (see SqlRequestStats).
+ *
+ * - Adds a Server-Timing "db" entry when the response is committed.
+ * - Records http.server.requests.sql.statements / .time per route, and
+ *   http.server.requests.sql.flagged when a request runs more statements than the
+ *   threshold or repeats one statement often enough to look like an N+1.
+ * - Leaves the stats in the STATS_ATTRIBUTE request attribute so integration tests
+ *   can put a statement budget on endpoints.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlQueryMetricsFilter extends OncePerRequestFilter {
+
+    public static final String STATS_ATTRIBUTE = SqlQueryMetricsFilter.class.getName() + ".STATS";
+
+    private final boolean enabled;
+    private final int statementThreshold;
+    private final int repeatThreshold;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public SqlQueryMetricsFilter(@Value("${llm.sql-metrics.enabled:true}") boolean enabled,
+                                 @Value("${llm.sql-metrics.statement-threshold:20}") int statementThreshold,
+                                 @Value("${llm.sql-metrics.repeat-threshold:10}") int repeatThreshold,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.statementThreshold = statementThreshold;
+        this.repeatThreshold = repeatThreshold;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        HttpServletResponse timedResponse = new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                addServerTiming(response, stats);
+            }
+        };
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            SqlRequestStats.end();
+            if (!response.isCommitted()) {
+                addServerTiming(response, stats);
+            }
+            record(request, stats);
+        }
+    }
+
+    private static void addServerTiming(HttpServletResponse response, SqlRequestStats stats) {
+        response.addHeader("Server-Timing", String.format(Locale.ROOT, "db;dur=%.1f;desc=\"%d queries\"",
+                stats.getExecutionMillis(), stats.getStatementCount()));
+    }
+
+    private void record(HttpServletRequest request, SqlRequestStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        boolean tooMany = stats.getStatementCount() > statementThreshold;
+        boolean repeated = stats.maxRepeats() >= repeatThreshold;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null && stats.getStatementCount() > 0) {
+            registry.summary("http.server.requests.sql.statements", "method", method, "uri", uri)
+                    .record(stats.getStatementCount());
+            registry.timer("http.server.requests.sql.time", "method", method, "uri", uri)
+                    .record(Math.round(stats.getExecutionMillis() * 1_000_000), TimeUnit.NANOSECONDS);
+            if (tooMany || repeated) {
+                registry.counter("http.server.requests.sql.flagged", "method", method, "uri", uri,
+                        "reason", repeated ? "repeated" : "statements").increment();
+            }
+        }
+
+        if (tooMany || repeated) {
+            Map.Entry<String, Integer> top = stats.mostRepeated();
+            String sql = top.getKey().length() > 200 ? top.getKey().substring(0, 200) + "..." : top.getKey();
+            System.err.println("SqlQueryMetricsFilter: " + method + " " + uri + " ran " + stats.getStatementCount()
+                    + " statements (" + String.format(Locale.ROOT, "%.1f", stats.getExecutionMillis()) + " ms); "
+                    + top.getValue() + "x: " + sql);
+        }
+    }
+}
@@ -9,6 +9,8 @@ import org.localslocalmarket.model.Shop;
 import org.localslocalmarket.model.UnauthenticatedShopReview;
 import org.localslocalmarket.repo.ShopRepository;
 import org.localslocalmarket.repo.UnauthenticatedShopReviewRepository;
+import org.localslocalmarket.service.RatingSummaryService;
+import org.localslocalmarket.service.ShopRatingAggregateService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,10 +25,16 @@ import org.springframework.web.bind.annotation.RestController;
 public class UnauthenticatedReviewController {
     private final ShopRepository shops;
     private final UnauthenticatedShopReviewRepository reviews;
+    private final ShopRatingAggregateService ratingAggregates;
+    private final RatingSummaryService ratingSummaries;
 
-    public UnauthenticatedReviewController(ShopRepository shops, UnauthenticatedShopReviewRepository reviews) {
+    public UnauthenticatedReviewController(ShopRepository shops, UnauthenticatedShopReviewRepository reviews,
+                                           ShopRatingAggregateService ratingAggregates,
+                                           RatingSummaryService ratingSummaries) {
         this.shops = shops;
         this.reviews = reviews;
+        this.ratingAggregates = ratingAggregates;
+        this.ratingSummaries = ratingSummaries;
     }
 
     public record UnauthenticatedReviewRequest(
@@ -83,7 +91,8 @@ public class UnauthenticatedReviewController {
             review.setDeviceId(req.deviceId());
             review.setCreatedAt(Instant.now());
 
-            UnauthenticatedShopReview savedReview = reviews.save(review);
+            UnauthenticatedShopReview savedReview = ratingAggregates.saveUnauthenticatedReview(review);
+            ratingSummaries.evictShop(shopId);
 
             return ResponseEntity.ok(new UnauthenticatedReviewResponse(
                 savedReview.getId(),
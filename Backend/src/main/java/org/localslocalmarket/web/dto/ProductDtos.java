@@ -1,9 +1,13 @@
 package org.localslocalmarket.web.dto;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.localslocalmarket.model.Product;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -33,7 +37,8 @@ public class ProductDtos {
             String mainCategory,
             String subcategory,
             String customCategory,
-            Boolean isActive
+            Boolean isActive,
+            Long version // version the client last read; a mismatch is rejected with 409
     ){}
     
     public record UpdateImagesRequest(
@@ -54,7 +59,8 @@ public class ProductDtos {
             Boolean isActive,
             java.time.Instant createdAt,
             Long shopId,
-            String shopName
+            String shopName,
+            Long version
     ){
         public static ProductResponse fromProduct(Product product) {
             // Safely handle lazy-loaded shop relationship
@@ -86,8 +92,86 @@ public class ProductDtos {
                 product.getIsActive(),
                 product.getCreatedAt(),
                 shopId,
-                shopName
+                shopName,
+                product.getVersion()
             );
         }
+
+        public ProductResponse withStockCount(Integer stockCount) {
+            return new ProductResponse(id, title, description, price, stockCount, imagePathsJson, category,
+                    mainCategory, subcategory, customCategory, isActive, createdAt, shopId, shopName, version);
+        }
     }
+
+    /**
+     * Lean product card for category grids, built by JPQL constructor
+     * expressions in ProductRepository. description is trimmed to the first
+     * 160 characters by the query; the full text comes from GET /api/products/{id}.
+     */
+    public record ProductCardResponse(
+            Long id,
+            String title,
+            String description,
+            BigDecimal price,
+            Integer stockCount,
+            String imagePathsJson,
+            String mainCategory,
+            String subcategory,
+            String customCategory,
+            Boolean isActive,
+            java.time.Instant createdAt,
+            Long shopId,
+            String shopName
+    ){
+        public ProductCardResponse withStockCount(Integer stockCount) {
+            return new ProductCardResponse(id, title, description, price, stockCount, imagePathsJson,
+                    mainCategory, subcategory, customCategory, isActive, createdAt, shopId, shopName);
+        }
+    }
+
+    /**
+     * One row of a bulk import (CSV with a header line, or one JSON object per
+     * line). Columns match ProductExportRow, so an export can be edited and
+     * re-imported; id and isActive are ignored on import.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ProductImportRow(
+            String title,
+            String description,
+            BigDecimal price,
+            Integer stockCount,
+            String imagePathsJson,
+            String category,
+            String mainCategory,
+            String subcategory,
+            String customCategory
+    ){}
+
+    @JsonPropertyOrder({"id", "title", "description", "price", "stockCount", "imagePathsJson",
+            "category", "mainCategory", "subcategory", "customCategory", "isActive"})
+    public record ProductExportRow(
+            Long id,
+            String title,
+            String description,
+            BigDecimal price,
+            Integer stockCount,
+            String imagePathsJson,
+            String category,
+            String mainCategory,
+            String subcategory,
+            String customCategory,
+            Boolean isActive
+    ){}
+
+    public record ImportRowError(
+            long row,
+            String message
+    ){}
+
+    public record ImportResult(
+            long totalRows,
+            long imported,
+            long failed,
+            List<ImportRowError> errors
+    ){}
 }
@@ -0,0 +1,29 @@
+package org.localslocalmarket.web.dto;
+
+public class RatingDtos {
+    public record RatingSummary(
+            long count,
+            double average
+    ){
+        public static final RatingSummary EMPTY = new RatingSummary(0, 0.0);
+
+        public static RatingSummary of(long count, long starSum) {
+            return new RatingSummary(count, count > 0 ? Math.round(starSum * 10.0 / count) / 10.0 : 0.0);
+        }
+
+        public static RatingSummary of(long count, Double average) {
+            return new RatingSummary(count, average == null ? 0.0 : Math.round(average * 10.0) / 10.0);
+        }
+    }
+
+    /**
+     * Combined shop rating plus the per-source figures the two legacy
+     * summary endpoints return (authenticated ratings, public reviews).
+     */
+    public record ShopRatingSummary(
+            long count,
+            double average,
+            RatingSummary authenticated,
+            RatingSummary reviews
+    ){}
+}
@@ -1,6 +1,10 @@
 package org.localslocalmarket.web.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.localslocalmarket.model.ServiceStatus;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -28,13 +32,18 @@ public class ServiceDtos {
             String subcategory,
             String customCategory,
             String status,
-            Boolean isActive
+            Boolean isActive,
+            Long version // version the client last read; a mismatch is rejected with 409
     ){}
     
     public record UpdateImagesRequest(
             String imageUrl
     ){}
     
+    public record UpdateStatusRequest(
+            @NotBlank String status
+    ){}
+    
     public record ServiceResponse(
             Long id,
             Long shopId,
@@ -50,4 +59,41 @@ public class ServiceDtos {
             String createdAt,
             String updatedAt
     ){}
+
+    /**
+     * Lean service card for category grids, built by JPQL constructor
+     * expressions in ServiceRepository. description is trimmed to the first
+     * 160 characters by the query; the full text comes from GET /api/services/{id}.
+     */
+    public record ServiceCardResponse(
+            Long id,
+            Long shopId,
+            String title,
+            String description,
+            String imageUrl,
+            BigDecimal price,
+            String mainCategory,
+            String subcategory,
+            String customCategory,
+            ServiceStatus status,
+            Boolean isActive,
+            LocalDateTime createdAt,
+            LocalDateTime updatedAt
+    ){
+        public ServiceCardResponse withStatus(ServiceStatus status) {
+            return new ServiceCardResponse(id, shopId, title, description, imageUrl, price,
+                    mainCategory, subcategory, customCategory, status, isActive, createdAt, updatedAt);
+        }
+    }
+
+    /**
+     * Keyset page of service cards. Pass nextCursor back as cursor for the next
+     * page; it is null on the last one. There is no total count.
+     */
+    public record ServiceCursorPage(
+            List<ServiceCardResponse> content,
+            Long nextCursor,
+            boolean hasNext,
+            int limit
+    ){}
 }
@@ -23,7 +23,8 @@ public class ShopDtos {
             String twitter,
             String businessHoursJson,
             String offeringType,
-            String showcasePriority
+            String showcasePriority,
+            String timeZone // IANA id, e.g. "Asia/Manila"; defaults to llm.shops.default-time-zone
     ){}
 
     // All fields optional for PATCH
@@ -47,7 +48,9 @@ public class ShopDtos {
             String businessHoursJson,
             Boolean isActive,
             String offeringType,
-            String showcasePriority
+            String showcasePriority,
+            String timeZone,
+            Long version // version the client last read; a mismatch is rejected with 409
     ){}
     
     public record ShopResponse(
@@ -69,11 +72,13 @@ public class ShopDtos {
             String adsImagePathsJson,
             Boolean adsEnabled,
             String businessHoursJson,
+            String timeZone,
             java.time.Instant createdAt,
             Long ownerId,
             Boolean isActive,
             String offeringType,
-            String showcasePriority
+            String showcasePriority,
+            Long version
     ){
         public static ShopResponse fromShop(Shop shop) {
             return new ShopResponse(
@@ -95,15 +100,41 @@ public class ShopDtos {
                 shop.getAdsImagePathsJson(),
                 shop.getAdsEnabled(),
                 shop.getBusinessHoursJson(),
+                shop.getTimeZone(),
                 shop.getCreatedAt(),
                 shop.getOwner() != null ? shop.getOwner().getId() : null,
                 shop.getIsActive(),
                 shop.getOfferingType(),
-                shop.getShowcasePriority()
+                shop.getShowcasePriority(),
+                shop.getVersion()
             );
         }
     }
 
+    /**
+     * Lean shop card for listing grids. Built directly by JPQL constructor
+     * expressions in ShopRepository so the heavy columns (businessHoursJson,
+     * adsImagePathsJson, contact links) are never read for card pages.
+     * description is trimmed to the first 160 characters by the query;
+     * the full text comes from GET /api/shops/{slug}.
+     */
+    public record ShopCardResponse(
+            Long id,
+            String name,
+            String description,
+            String category,
+            String addressLine,
+            Double lat,
+            Double lng,
+            String logoPath,
+            String coverPath,
+            java.time.Instant createdAt,
+            Long ownerId,
+            Boolean isActive,
+            String offeringType,
+            String showcasePriority
+    ){}
+
     public record ShopResponseWithRatings(
             Long id,
             String name,
@@ -114,21 +145,29 @@ public class ShopDtos {
             Double lng,
             String logoPath,
             String coverPath,
-            String phone,
-            String website,
-            String email,
-            String facebook,
-            String instagram,
-            String twitter,
-            String adsImagePathsJson,
-            Boolean adsEnabled,
-            String businessHoursJson,
             java.time.Instant createdAt,
             Long ownerId,
             Boolean isActive,
+            String offeringType,
+            String showcasePriority,
             Double averageRating,
             Long reviewCount
-    ){}
+    ){
+        /**
+         * Built by ShopRepository.findCardsWithRatings from the shop_rating_aggregate
+         * totals (both review sources combined); the average is rounded to one decimal.
+         */
+        public ShopResponseWithRatings(Long id, String name, String description, String category,
+                                       String addressLine, Double lat, Double lng, String logoPath,
+                                       String coverPath, java.time.Instant createdAt, Long ownerId,
+                                       Boolean isActive, String offeringType, String showcasePriority,
+                                       Long ratingCount, Long ratingSum) {
+            this(id, name, description, category, addressLine, lat, lng, logoPath, coverPath,
+                 createdAt, ownerId, isActive, offeringType, showcasePriority,
+                 ratingCount > 0 ? Math.round(ratingSum * 10.0 / ratingCount) / 10.0 : 0.0,
+                 ratingCount);
+        }
+    }
 
 
 }
@@ -0,0 +1,31 @@
+package org.localslocalmarket.web.dto;
+
+import java.util.List;
+
+public class SyncDtos {
+    /**
+     * One page of the /api/shops/changes feed. Shops are returned in full (same
+     * shape as /api/shops/all, inactive ones included); products and services as
+     * cards, active only. Anything deactivated or deleted since the cursor is
+     * listed under removed. Pass cursor back as since on the next call.
+     * When resync or truncated is true the client should reload /api/shops/all.
+     */
+    public record ChangeFeedResponse(
+            long cursor,
+            boolean resync,
+            boolean truncated,
+            List<ShopDtos.ShopResponse> shops,
+            List<ProductDtos.ProductCardResponse> products,
+            List<ServiceDtos.ServiceCardResponse> services,
+            RemovedIds removed
+    ){}
+
+    /**
+     * Ids to drop client-side. Removing a shop implies removing its products and services.
+     */
+    public record RemovedIds(
+            List<Long> shops,
+            List<Long> products,
+            List<Long> services
+    ){}
+}
@@ -0,0 +1,9 @@
+-- Product and Service ids come from pooled sequences (allocation size 50) instead of
+-- IDENTITY, so Hibernate can batch inserts. Existing identity columns keep working
+-- because explicit ids are always supplied now.
+CREATE SEQUENCE IF NOT EXISTS product_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS services_seq START WITH 1 INCREMENT BY 50;
+
+-- Move the sequences past existing rows (IdSequenceAlignment does the same at startup)
+SELECT setval('product_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM product), 1));
+SELECT setval('services_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM services), 1));
@@ -0,0 +1,5 @@
+-- Business hours compiled on write (minute-of-week intervals, see BusinessHours.encode())
+-- and the IANA zone they are read in; rows left NULL are compiled from business_hours_json
+-- when ShopHoursIndex first loads them
+ALTER TABLE shop ADD COLUMN IF NOT EXISTS business_hours_intervals VARCHAR(1000);
+ALTER TABLE shop ADD COLUMN IF NOT EXISTS time_zone VARCHAR(64);
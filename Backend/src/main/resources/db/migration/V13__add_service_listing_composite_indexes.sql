@@ -0,0 +1,4 @@
+-- Composite indexes for the service listings, whose SQL now carries only the criteria
+-- a request sets: category (+ status) browsing, and a shop's active services
+CREATE INDEX IF NOT EXISTS idx_services_active_category_status ON services (is_active, main_category, status);
+CREATE INDEX IF NOT EXISTS idx_services_shop_active ON services (shop_id, is_active);
@@ -0,0 +1,8 @@
+-- Rate-limit state shared by all instances (see DatabaseRateLimitLedger). UNLOGGED: no WAL
+-- on the hot write path, and a crash only resets the limits. Rows are pruned once idle.
+CREATE UNLOGGED TABLE IF NOT EXISTS rate_limit_buckets (
+    bucket_key VARCHAR(200) PRIMARY KEY,
+    tat_micros BIGINT NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_rate_limit_buckets_tat ON rate_limit_buckets(tat_micros);
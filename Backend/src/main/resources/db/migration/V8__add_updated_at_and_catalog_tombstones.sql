@@ -0,0 +1,21 @@
+-- Delta sync support: change timestamps on shops/products and a tombstone log for hard deletes
+ALTER TABLE shop ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+ALTER TABLE product ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP;
+
+-- Backfill so existing rows sort sensibly; they are covered by the client's initial full load
+UPDATE shop SET updated_at = created_at WHERE updated_at IS NULL;
+UPDATE product SET updated_at = created_at WHERE updated_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_shop_updated_at ON shop(updated_at);
+CREATE INDEX IF NOT EXISTS idx_product_updated_at ON product(updated_at);
+CREATE INDEX IF NOT EXISTS idx_services_updated_at ON services(updated_at);
+
+CREATE TABLE IF NOT EXISTS catalog_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(16) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    shop_id BIGINT,
+    removed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_catalog_tombstones_removed_at ON catalog_tombstones(removed_at);
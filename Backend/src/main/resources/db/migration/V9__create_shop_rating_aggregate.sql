@@ -0,0 +1,18 @@
+-- Per-shop review totals (authenticated + unauthenticated) for listing pages
+CREATE TABLE IF NOT EXISTS shop_rating_aggregate (
+    shop_id BIGINT PRIMARY KEY,
+    auth_count BIGINT NOT NULL DEFAULT 0,
+    auth_sum BIGINT NOT NULL DEFAULT 0,
+    unauth_count BIGINT NOT NULL DEFAULT 0,
+    unauth_sum BIGINT NOT NULL DEFAULT 0
+);
+
+-- Backfill from existing reviews (the application also does this on first start if the table is empty)
+INSERT INTO shop_rating_aggregate (shop_id, auth_count, auth_sum, unauth_count, unauth_sum)
+SELECT s.id,
+       COALESCE((SELECT COUNT(*) FROM shop_ratings r WHERE r.shop_id = s.id), 0),
+       COALESCE((SELECT SUM(r.stars) FROM shop_ratings r WHERE r.shop_id = s.id), 0),
+       COALESCE((SELECT COUNT(*) FROM unauthenticated_shop_reviews u WHERE u.shop_id = s.id), 0),
+       COALESCE((SELECT SUM(u.stars) FROM unauthenticated_shop_reviews u WHERE u.shop_id = s.id), 0)
+FROM shop s
+ON CONFLICT (shop_id) DO NOTHING;
@@ -0,0 +1,110 @@
+package org.localslocalmarket.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.repository.ServiceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Throughput of bulk product/service inserts through saveAll, with the number of
+ * JDBC statements Hibernate prepared. Not part of the regular build:
+ *
+ *   mvn test -Dtest=BulkWriteBenchmarkTest -Dbenchmark=true [-Dbenchmark.rows=5000]
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkWriteBenchmarkTest {
+
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+    @Autowired ProductRepository products;
+    @Autowired ServiceRepository services;
+    @Autowired TransactionTemplate tx;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    void bulkInsertThroughput() {
+        int rows = Integer.getInteger("benchmark.rows", 5000);
+        Shop shop = tx.execute(status -> {
+            User owner = new User();
+            owner.setEmail("bench-" + System.nanoTime() + "@example.com");
+            owner.setPasswordHash("x");
+            owner.setName("bench");
+            users.save(owner);
+            Shop s = new Shop();
+            s.setOwner(owner);
+            s.setName("Bench shop");
+            s.setCategory("Bench");
+            s.setLat(0.0);
+            s.setLng(0.0);
+            return shops.save(s);
+        });
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+
+        // Warm-up round so JIT and connection pool do not skew the first measurement
+        insertProducts(shop, 200);
+
+        stats.clear();
+        long start = System.nanoTime();
+        insertProducts(shop, rows);
+        report("products", rows, System.nanoTime() - start, stats.getPrepareStatementCount());
+
+        stats.clear();
+        start = System.nanoTime();
+        insertServices(shop, rows);
+        report("services", rows, System.nanoTime() - start, stats.getPrepareStatementCount());
+    }
+
+    private void insertProducts(Shop shop, int rows) {
+        tx.executeWithoutResult(status -> {
+            List<Product> batch = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                Product p = new Product();
+                p.setShop(shop);
+                p.setTitle("Bench product " + i);
+                p.setPrice(BigDecimal.valueOf(i % 100 + 1));
+                p.setMainCategory("Bench");
+                batch.add(p);
+            }
+            products.saveAll(batch);
+        });
+    }
+
+    private void insertServices(Shop shop, int rows) {
+        tx.executeWithoutResult(status -> {
+            List<Service> batch = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                Service s = new Service();
+                s.setShop(shop);
+                s.setTitle("Bench service " + i);
+                s.setMainCategory("Bench");
+                batch.add(s);
+            }
+            services.saveAll(batch);
+        });
+    }
+
+    private static void report(String what, int rows, long nanos, long statements) {
+        double millis = nanos / 1_000_000.0;
+        System.out.printf("BENCHMARK %-8s rows=%d time=%.0fms throughput=%.0f rows/s statements=%d%n",
+                what, rows, millis, rows / (millis / 1000.0), statements);
+    }
+}
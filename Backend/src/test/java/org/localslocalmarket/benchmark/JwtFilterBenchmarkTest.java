@@ -0,0 +1,115 @@
+package org.localslocalmarket.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.security.JwtAuthFilter;
+import org.localslocalmarket.security.JwtService;
+import org.localslocalmarket.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Per-request cost of bearer token authentication. Not part of the regular build:
+ *
+ *   mvn test -Dtest=JwtFilterBenchmarkTest -Dbenchmark=true [-Dbenchmark.requests=20000]
+ *
+ * - verify-rebuild: a new parser per call plus a full signature check (the old getClaims)
+ * - verify-cached:  JwtService.getClaims for a token it has already verified
+ * - filter-cold:    JwtAuthFilter with a new token and an evicted principal every request
+ * - filter-warm:    JwtAuthFilter with the same token, the steady state of a signed-in client
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JwtFilterBenchmarkTest {
+
+    @Autowired JwtService jwt;
+    @Autowired JwtAuthFilter filter;
+    @Autowired PrincipalCache principalCache;
+    @Autowired UserRepository users;
+
+    @Value("${llm.jwt.secret}")
+    String secret;
+
+    @Test
+    void bearerAuthenticationCost() throws Exception {
+        int requests = Integer.getInteger("benchmark.requests", 20000);
+        User user = new User();
+        user.setEmail("bench-jwt-" + System.nanoTime() + "@example.com");
+        user.setPasswordHash("x");
+        user.setName("bench");
+        users.save(user);
+        Map<String, Object> claims = Map.of("uid", user.getId(), "role", user.getRole().name());
+        String token = jwt.generate(user.getEmail(), claims);
+        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes());
+
+        // Warm-up round so JIT does not skew the first measurement
+        for (int i = 0; i < 2000; i++) {
+            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+            jwt.getClaims(token);
+            authenticate(token);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        }
+        report("verify-rebuild", requests, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            jwt.getClaims(token);
+        }
+        report("verify-cached", requests, System.nanoTime() - start);
+
+        // Distinct tokens (iat/exp differ by the millisecond) so none hits the claims cache
+        int coldRequests = Math.min(requests, 2000);
+        List<String> freshTokens = new ArrayList<>(coldRequests);
+        for (int i = 0; i < coldRequests; i++) {
+            freshTokens.add(jwt.generate(user.getEmail(), Map.of("uid", user.getId(), "role", user.getRole().name(), "n", i)));
+        }
+        start = System.nanoTime();
+        for (String fresh : freshTokens) {
+            principalCache.evict(user.getId());
+            authenticate(fresh);
+        }
+        report("filter-cold", coldRequests, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            authenticate(token);
+        }
+        report("filter-warm", requests, System.nanoTime() - start);
+    }
+
+    private void authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/services");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            throw new IllegalStateException("token did not authenticate");
+        }
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void report(String what, int requests, long nanos) {
+        System.out.printf("BENCHMARK %-14s requests=%d time=%.0fms per-request=%.1fus%n",
+                what, requests, nanos / 1_000_000.0, nanos / 1000.0 / requests);
+    }
+}
@@ -0,0 +1,106 @@
+package org.localslocalmarket.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.localslocalmarket.security.GcraRateLimiter;
+
+/**
+ * RateLimitFilter's limiter under many concurrent keys (think one key per client IP).
+ * Not part of the regular build:
+ *
+ *   mvn test -Dtest=RateLimiterBenchmarkTest -Dbenchmark=true [-Dbenchmark.keys=200000] [-Dbenchmark.threads=8]
+ *
+ * - deque: the previous limiter, a synchronized timestamp deque per key in an unbounded map
+ * - gcra:  GcraRateLimiter, one AtomicLong per key, swept and capped at MAX_KEYS
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RateLimiterBenchmarkTest {
+
+    private static final int LIMIT = 30;
+    private static final int MAX_KEYS = 100_000;
+
+    @Test
+    void throughputAndRetainedKeysUnderManyKeys() throws Exception {
+        int keys = Integer.getInteger("benchmark.keys", 200_000);
+        int threads = Integer.getInteger("benchmark.threads", 8);
+        int requests = Integer.getInteger("benchmark.requests", 1_000_000);
+        String[] keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255) + "|/api/auth/login";
+        }
+
+        // Warm-up round so JIT does not skew the first measurement
+        run("warm-up", new DequeLimiter()::tryAcquire, () -> 0, keyNames, threads, requests / 10, false);
+        GcraRateLimiter warm = new GcraRateLimiter(Duration.ofMinutes(1), MAX_KEYS);
+        run("warm-up", key -> warm.tryAcquire(key, LIMIT), () -> 0, keyNames, threads, requests / 10, false);
+
+        DequeLimiter deque = new DequeLimiter();
+        run("deque", deque::tryAcquire, () -> deque.buckets.size(), keyNames, threads, requests, true);
+        GcraRateLimiter gcra = new GcraRateLimiter(Duration.ofMinutes(1), MAX_KEYS);
+        run("gcra", key -> gcra.tryAcquire(key, LIMIT), gcra::size, keyNames, threads, requests, true);
+    }
+
+    private static void run(String what, Predicate<String> limiter, LongSupplier retainedKeys,
+                            String[] keyNames, int threads, int requests, boolean report) throws Exception {
+        System.gc();
+        long heapBefore = usedHeap();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < requests / threads; i++) {
+                    limiter.test(keyNames[random.nextInt(keyNames.length)]);
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.MINUTES);
+        long nanos = System.nanoTime() - start;
+        System.gc();
+        if (report) {
+            System.out.printf("BENCHMARK %-6s threads=%d keys=%d requests=%d throughput=%.0f req/s per-request=%.0fns retained-keys=%d heap-growth=%dMB%n",
+                    what, threads, keyNames.length, requests, requests / (nanos / 1e9), (double) nanos * threads / requests,
+                    retainedKeys.getAsLong(), Math.max(usedHeap() - heapBefore, 0) / (1024 * 1024));
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // RateLimitFilter's limiter before GcraRateLimiter, kept here as the baseline
+    private static final class DequeLimiter {
+        private static final long WINDOW_MILLIS = 60_000;
+        final Map<String, Deque<Long>> buckets = new ConcurrentHashMap<>();
+
+        boolean tryAcquire(String key) {
+            long now = System.currentTimeMillis();
+            long windowStart = now - WINDOW_MILLIS;
+            Deque<Long> q = buckets.computeIfAbsent(key, k -> new ArrayDeque<>());
+            synchronized (q) {
+                while (!q.isEmpty() && q.peekFirst() < windowStart) {
+                    q.pollFirst();
+                }
+                if (q.size() >= LIMIT) {
+                    return false;
+                }
+                q.addLast(now);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.localslocalmarket.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BusinessHoursTest {
+
+    private static final int MONDAY = 0;
+    private static final int FRIDAY = 4 * BusinessHours.MINUTES_PER_DAY;
+    private static final int SATURDAY = 5 * BusinessHours.MINUTES_PER_DAY;
+    private static final int SUNDAY = 6 * BusinessHours.MINUTES_PER_DAY;
+
+    @Test
+    void readsTheEditorFields() {
+        BusinessHours hours = BusinessHours.fromJson("{\"monday\": " + editor("09", "30", "AM", "05", "15", "PM") + "}");
+        assertEquals("570-1035", hours.encode());
+        assertFalse(hours.isOpenAt(MONDAY + 9 * 60 + 29));
+        assertTrue(hours.isOpenAt(MONDAY + 9 * 60 + 30));
+        assertTrue(hours.isOpenAt(MONDAY + 17 * 60 + 14));
+        assertFalse(hours.isOpenAt(MONDAY + 17 * 60 + 15));
+    }
+
+    @Test
+    void twelveAmIsMidnightAndTwelvePmIsNoon() {
+        assertEquals("0-60", BusinessHours.fromJson("{\"monday\": " + editor("12", "00", "AM", "01", "00", "AM") + "}").encode());
+        assertEquals("720-780", BusinessHours.fromJson("{\"monday\": " + editor("12", "00", "PM", "01", "00", "PM") + "}").encode());
+    }
+
+    @Test
+    void editorDefaultsMatchTheShopPage() {
+        // Empty minutes read as 00, an empty open half as AM and an empty close half as PM
+        String day = "{\"open\": \"9\", \"openMinute\": \"\", \"openAMPM\": \"\", \"close\": \"5\", \"isOpen\": true}";
+        assertEquals("540-1020", BusinessHours.fromJson("{\"monday\": " + day + "}").encode());
+    }
+
+    @Test
+    void readsLegacyTimeStrings() {
+        BusinessHours hours = BusinessHours.fromJson("{\"monday\": {\"open\": \"09:00\", \"close\": \"17:00\"},"
+                + " \"tuesday\": {\"open\": \"9:00 AM\", \"close\": \"5:30 PM\"}}");
+        assertEquals("540-1020,1980-2490", hours.encode());
+    }
+
+    @Test
+    void closedAndIsOpenFalseCloseTheDay() {
+        BusinessHours hours = BusinessHours.fromJson("{\"monday\": {\"open\": \"09:00\", \"close\": \"17:00\", \"closed\": true},"
+                + " \"tuesday\": {\"open\": \"09\", \"openMinute\": \"00\", \"openAMPM\": \"AM\", \"close\": \"05\","
+                + " \"closeMinute\": \"00\", \"closeAMPM\": \"PM\", \"isOpen\": false},"
+                + " \"wednesday\": {\"open\": \"09:00\", \"close\": \"17:00\", \"closed\": false}}");
+        assertEquals("3420-3900", hours.encode());
+    }
+
+    @Test
+    void closeAtOrBeforeOpenRunsPastMidnight() {
+        BusinessHours hours = BusinessHours.fromJson("{\"friday\": " + editor("08", "00", "PM", "02", "00", "AM") + "}");
+        assertTrue(hours.isOpenAt(FRIDAY + 23 * 60));
+        assertTrue(hours.isOpenAt(SATURDAY + 60));
+        assertFalse(hours.isOpenAt(SATURDAY + 2 * 60));
+    }
+
+    @Test
+    void saturdayIntoSundayAndSundayIntoMondayWrap() {
+        BusinessHours hours = BusinessHours.fromJson("{\"saturday\": " + editor("10", "00", "PM", "01", "00", "AM") + ","
+                + " \"sunday\": " + editor("10", "00", "PM", "02", "00", "AM") + "}");
+        assertTrue(hours.isOpenAt(SATURDAY + 23 * 60));
+        assertTrue(hours.isOpenAt(SUNDAY + 30));
+        assertFalse(hours.isOpenAt(SUNDAY + 60));
+        assertTrue(hours.isOpenAt(SUNDAY + 23 * 60));
+        assertTrue(hours.isOpenAt(MONDAY + 60));
+        assertFalse(hours.isOpenAt(MONDAY + 2 * 60));
+    }
+
+    @Test
+    void elevenFiftyNinePmClosesAtMidnight() {
+        String allDay = editor("12", "00", "AM", "11", "59", "PM");
+        BusinessHours hours = BusinessHours.fromJson("{\"monday\": " + allDay + ", \"tuesday\": " + allDay + "}");
+        // Back-to-back days merge into one interval with no gap at 23:59
+        assertEquals("0-2880", hours.encode());
+        assertTrue(hours.isOpenAt(MONDAY + BusinessHours.MINUTES_PER_DAY - 1));
+    }
+
+    @Test
+    void equalTimesMeanOpenAllDay() {
+        assertEquals("0-1440", BusinessHours.fromJson("{\"monday\": " + editor("12", "00", "AM", "12", "00", "AM") + "}").encode());
+    }
+
+    @Test
+    void unpublishedOrUnreadableHoursAreNull() {
+        assertNull(BusinessHours.fromJson(null));
+        assertNull(BusinessHours.fromJson(" "));
+        assertNull(BusinessHours.fromJson("{}"));
+        assertNull(BusinessHours.fromJson("not json"));
+        // Published but closed every day is not the same as unpublished
+        assertEquals("-", BusinessHours.fromJson("{\"monday\": {\"closed\": true}}").encode());
+    }
+
+    @Test
+    void encodeRoundTrips() {
+        BusinessHours hours = BusinessHours.fromJson("{\"monday\": {\"open\": \"09:00\", \"close\": \"17:00\"},"
+                + " \"sunday\": {\"open\": \"22:00\", \"close\": \"02:00\"}}");
+        assertEquals(hours.encode(), BusinessHours.decode(hours.encode()).encode());
+        assertEquals("-", BusinessHours.decode("-").encode());
+        assertNull(BusinessHours.decode(null));
+    }
+
+    private static String editor(String open, String openMinute, String openAmPm, String close, String closeMinute, String closeAmPm) {
+        return "{\"open\": \"" + open + "\", \"openMinute\": \"" + openMinute + "\", \"openAMPM\": \"" + openAmPm + "\","
+                + " \"close\": \"" + close + "\", \"closeMinute\": \"" + closeMinute + "\", \"closeAMPM\": \"" + closeAmPm + "\","
+                + " \"isOpen\": true}";
+    }
+}
@@ -0,0 +1,84 @@
+package org.localslocalmarket.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.config.SqlRequestStats;
+import org.localslocalmarket.model.ServiceStatus;
+import org.localslocalmarket.service.ServiceQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs the planner over the SQL ServiceQueryRepositoryImpl actually emits and checks
+ * that the common listing shapes are answered from the composite indexes rather
+ * than a table scan. Plans are read with SQLite's EXPLAIN QUERY PLAN, the database
+ * the test profile runs on; other databases skip.
+ */
+@SpringBootTest
+class ServiceQueryPlanTest {
+
+    @Autowired ServiceRepository services;
+    @Autowired DataSource dataSource;
+    @Autowired JdbcTemplate jdbc;
+
+    @BeforeEach
+    void requireSqlite() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            Assumptions.assumeTrue(connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("sqlite"));
+        }
+    }
+
+    @Test
+    void categoryAndStatusUseTheActiveCategoryStatusIndex() {
+        String plan = planOf(query(null, ServiceStatus.AVAILABLE, "Food"));
+        assertTrue(plan.contains("idx_services_active_category_status"), plan);
+    }
+
+    @Test
+    void shopListingsUseTheShopActiveIndex() {
+        String plan = planOf(query(42L, null, null));
+        assertTrue(plan.contains("idx_services_shop_active"), plan);
+    }
+
+    @Test
+    void unsetCriteriaAddNoPredicates() {
+        String sql = sqlOf(query(null, null, "Food"));
+        assertFalse(sql.toLowerCase(Locale.ROOT).contains("is null"), sql);
+        assertFalse(sql.contains("shop_id="), sql);
+        assertFalse(sql.contains("status="), sql);
+    }
+
+    private static ServiceQuery query(Long shopId, ServiceStatus status, String category) {
+        return ServiceQuery.of(shopId, status, category, null, null, null, null, null, null, 0, 20);
+    }
+
+    private String sqlOf(ServiceQuery query) {
+        SqlRequestStats stats = SqlRequestStats.begin();
+        try {
+            services.findIds(query);
+        } finally {
+            SqlRequestStats.end();
+        }
+        return stats.mostRepeated().getKey();
+    }
+
+    private String planOf(ServiceQuery query) {
+        String sql = sqlOf(query);
+        // Unbound parameters are NULL to SQLite, which does not change the plan
+        List<Map<String, Object>> rows = jdbc.queryForList("EXPLAIN QUERY PLAN " + sql);
+        return rows.stream().map(row -> String.valueOf(row.get("detail"))).collect(Collectors.joining("\n"));
+    }
+}
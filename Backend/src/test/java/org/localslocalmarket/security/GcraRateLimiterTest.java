@@ -0,0 +1,58 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class GcraRateLimiterTest {
+
+    @Test
+    void allowsABurstOfLimitPerKeyThenRefuses() {
+        GcraRateLimiter limiter = new GcraRateLimiter(Duration.ofMinutes(1), 1000);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("10.0.0.1|/api/auth/login", 10));
+        }
+        assertFalse(limiter.tryAcquire("10.0.0.1|/api/auth/login", 10));
+        // Other keys keep their own budget
+        assertTrue(limiter.tryAcquire("10.0.0.2|/api/auth/login", 10));
+    }
+
+    @Test
+    void concurrentRequestsNeverExceedTheLimit() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(Duration.ofMinutes(1), 1000);
+        AtomicInteger allowed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            pool.execute(() -> {
+                if (limiter.tryAcquire("shared", 100)) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(100, allowed.get());
+    }
+
+    @Test
+    void keysPastTheCapShareOneOverflowBudget() {
+        GcraRateLimiter limiter = new GcraRateLimiter(Duration.ofMinutes(1), 500);
+        int allowed = 0;
+        for (int i = 0; i < 20_000; i++) {
+            if (limiter.tryAcquire("10.1." + i + "|/api/shops", 30)) {
+                allowed++;
+            }
+        }
+        // Every held key is still inside its window, so the sweep cannot free any
+        assertEquals(500, limiter.size());
+        assertEquals(500 + 30, allowed);
+    }
+}
@@ -0,0 +1,28 @@
+package org.localslocalmarket.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/** In-process stand-in for DatabaseRateLimitLedger: one map several stores ("instances") share. */
+class InMemoryRateLimitLedger implements RateLimitLedger {
+
+    private final Map<String, Long> tats = new HashMap<>();
+    int calls;
+    // Set to make every call fail as an unreachable database would
+    volatile boolean down;
+
+    @Override
+    public synchronized int lease(String key, int limit, int minUnits, int maxUnits, int returnedUnits, Duration window) {
+        calls++;
+        if (down) {
+            throw new IllegalStateException("ledger unreachable");
+        }
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        Grant grant = RateLimitLedger.apply(tats.getOrDefault(key, 0L), now, limit, minUnits, maxUnits, returnedUnits, window);
+        tats.put(key, grant.tat());
+        return grant.units();
+    }
+}
@@ -0,0 +1,85 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class LeasedRateLimitStoreTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    @Autowired DatabaseRateLimitLedger databaseLedger;
+
+    @Test
+    void instancesSharingTheDatabaseShareOneLimit() {
+        RateLimitStore first = new LeasedRateLimitStore(databaseLedger, "test", WINDOW, 10, Duration.ofSeconds(1), Duration.ofSeconds(10), 100);
+        RateLimitStore second = new LeasedRateLimitStore(databaseLedger, "test", WINDOW, 10, Duration.ofSeconds(1), Duration.ofSeconds(10), 100);
+
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (first.tryAcquire("10.0.0.1|/api/auth/login", 10)) allowed++;
+            if (second.tryAcquire("10.0.0.1|/api/auth/login", 10)) allowed++;
+        }
+        // Per-instance limiters would have let 20 through
+        assertEquals(10, allowed);
+    }
+
+    @Test
+    void leasesKeepMostRequestsLocalAndHandBackWhatTheyDidNotUse() throws Exception {
+        InMemoryRateLimitLedger ledger = new InMemoryRateLimitLedger();
+        Duration ttl = Duration.ofMillis(50);
+        LeasedRateLimitStore first = new LeasedRateLimitStore(ledger, "read", WINDOW, 10, ttl, Duration.ofSeconds(10), 100);
+        LeasedRateLimitStore second = new LeasedRateLimitStore(ledger, "read", WINDOW, 10, ttl, Duration.ofSeconds(10), 100);
+
+        // 100 cost-1 reads at a lease of 10% of 600 go to the ledger twice
+        for (int i = 0; i < 100; i++) {
+            assertTrue(first.tryAcquire("ip:1.2.3.4", 600, 1));
+        }
+        assertEquals(2, ledger.calls);
+
+        // A client reading now and then leases 60 units each time, but hands back the
+        // 59 it did not use; without that, 20 reads would cost 1200 units
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(ttl.toMillis() + 10);
+            assertTrue(first.tryAcquire("ip:5.6.7.8", 600, 1));
+        }
+        // So the other instance still sees the rest of the budget
+        assertTrue(second.tryAcquire("ip:5.6.7.8", 600, 500));
+        assertFalse(second.tryAcquire("ip:5.6.7.8", 600, 100));
+    }
+
+    @Test
+    void aDownLedgerIsOnlyRetriedOncePerInterval() throws Exception {
+        InMemoryRateLimitLedger ledger = new InMemoryRateLimitLedger();
+        ledger.down = true;
+        Duration retry = Duration.ofMillis(200);
+        LeasedRateLimitStore store = new LeasedRateLimitStore(ledger, "ip", WINDOW, 10, Duration.ofSeconds(1), retry, 100);
+
+        // Limited per instance meanwhile, and only the first request waited on the ledger
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.tryAcquire("10.0.0.1|/api/auth/login", 10));
+        }
+        assertFalse(store.tryAcquire("10.0.0.1|/api/auth/login", 10));
+        assertEquals(1, ledger.calls);
+
+        // Still down after the interval: one request tries it, the next ones skip it again
+        Thread.sleep(retry.toMillis() + 50);
+        assertTrue(store.tryAcquire("10.0.0.2|/api/auth/login", 10));
+        assertTrue(store.tryAcquire("10.0.0.2|/api/auth/login", 10));
+        assertEquals(2, ledger.calls);
+
+        // Back up: the next retry finds it and limits are shared again
+        ledger.down = false;
+        Thread.sleep(retry.toMillis() + 50);
+        assertTrue(store.tryAcquire("10.0.0.3|/api/auth/login", 10));
+        assertTrue(store.tryAcquire("10.0.0.3|/api/auth/login", 10));
+        assertEquals(4, ledger.calls);
+    }
+}
@@ -0,0 +1,95 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.config.SqlRequestStats;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.web.SqlQueryMetricsFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * JwtAuthFilter loads a user once and then authenticates from PrincipalCache, but a
+ * status change through the admin API must take effect on the very next request, and
+ * so must any other write to the user (email verification, Google sign-in).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class PrincipalCacheTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired JwtService jwt;
+    @Autowired PrincipalCache principalCache;
+
+    @Test
+    void cachedPrincipalSkipsTheUserQueryUntilStatusChanges() throws Exception {
+        User admin = admin("principal-admin");
+        User target = admin("principal-target");
+        String targetToken = tokenFor(target);
+
+        // Same statements as an anonymous request once the principal is cached
+        mvc.perform(get("/api/services?limit=1").header(HttpHeaders.AUTHORIZATION, targetToken));
+        int anonymous = statements(mvc.perform(get("/api/services?limit=1")).andReturn());
+        MvcResult cached = mvc.perform(get("/api/services?limit=1").header(HttpHeaders.AUTHORIZATION, targetToken)).andReturn();
+        assertEquals(anonymous, statements(cached));
+
+        String userPath = "/api/admin/users/" + target.getId();
+        assertEquals(200, mvc.perform(get(userPath).header(HttpHeaders.AUTHORIZATION, targetToken))
+                .andReturn().getResponse().getStatus());
+
+        mvc.perform(patch(userPath + "/status")
+                .header(HttpHeaders.AUTHORIZATION, tokenFor(admin))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"SUSPENDED\"}"));
+
+        int status = mvc.perform(get(userPath).header(HttpHeaders.AUTHORIZATION, targetToken))
+                .andReturn().getResponse().getStatus();
+        assertTrue(status == 401 || status == 403, "suspended user still authenticated: " + status);
+    }
+
+    @Test
+    void anyWriteToTheUserEvictsTheCachedPrincipal() throws Exception {
+        User user = admin("principal-verify");
+        mvc.perform(get("/api/services?limit=1").header(HttpHeaders.AUTHORIZATION, tokenFor(user)));
+        assertNotNull(principalCache.get(user.getId()));
+
+        // What UserController.verifyEmail does; it never touches the cache itself
+        User stored = users.findById(user.getId()).orElseThrow();
+        stored.setEmailVerified(true);
+        users.save(stored);
+
+        assertNull(principalCache.get(user.getId()));
+    }
+
+    private User admin(String name) {
+        User user = new User();
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setPasswordHash("x");
+        user.setName(name);
+        user.setRole(User.Role.ADMIN);
+        return users.save(user);
+    }
+
+    private String tokenFor(User user) {
+        return "Bearer " + jwt.generate(user.getEmail(), Map.of("uid", user.getId(), "role", user.getRole().name()));
+    }
+
+    private static int statements(MvcResult result) {
+        return ((SqlRequestStats) result.getRequest().getAttribute(SqlQueryMetricsFilter.STATS_ATTRIBUTE)).getStatementCount();
+    }
+}
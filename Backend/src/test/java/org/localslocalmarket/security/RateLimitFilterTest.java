@@ -0,0 +1,49 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class RateLimitFilterTest {
+
+    @Test
+    void spoofedForwardedForDoesNotResetTheReadBudget() throws Exception {
+        RateLimitFilter filter = filter(3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send(filter, "GET", "/api/shops/42", "203.0.113.7", "198.51.100." + i));
+        }
+        // Same client behind a new X-Forwarded-For address
+        assertEquals(429, send(filter, "GET", "/api/shops/42", "203.0.113.7", "198.51.100.99"));
+        // Another client still has its own budget
+        assertEquals(200, send(filter, "GET", "/api/shops/42", "203.0.113.8", "198.51.100.99"));
+    }
+
+    @Test
+    void spoofedForwardedForDoesNotResetTheLoginLimit() throws Exception {
+        RateLimitFilter filter = filter(600);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, send(filter, "POST", "/api/auth/login", "203.0.113.7", "198.51.100." + i));
+        }
+        assertEquals(429, send(filter, "POST", "/api/auth/login", "203.0.113.7", "198.51.100.99"));
+    }
+
+    private static RateLimitFilter filter(int readBudget) {
+        RateLimitStoreFactory stores = new RateLimitStoreFactory(null, "local", 1000, 10, 10000, 10000);
+        return new RateLimitFilter(mock(AuditService.class), stores, true, readBudget);
+    }
+
+    // remoteAddr is what RemoteIpValve derived from our proxy's hop; forwardedFor is whatever the client sent
+    private static int send(RateLimitFilter filter, String method, String uri, String remoteAddr, String forwardedFor)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,50 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class ReadBudgetTest {
+
+    @Test
+    void expensiveReadsCostMore() {
+        assertEquals(ReadCosts.ALL_SHOPS, ReadCosts.of(get("/api/shops/all")));
+        assertEquals(ReadCosts.SITEMAP, ReadCosts.of(get("/api/sitemap/shops-0.xml")));
+        assertEquals(ReadCosts.PAGE, ReadCosts.of(get("/api/shops/42")));
+
+        MockHttpServletRequest search = get("/api/shops");
+        search.setParameter("q", "bakery");
+        assertEquals(ReadCosts.SEARCH, ReadCosts.of(search));
+
+        MockHttpServletRequest deepPage = get("/api/shops");
+        deepPage.setParameter("page", "50");
+        assertEquals(ReadCosts.PAGE + 5, ReadCosts.of(deepPage));
+    }
+
+    @Test
+    void crawlerKeepingToItsCrawlDelayIsNeverRefused() {
+        CrawlerBudgets.Crawler bingbot = CrawlerBudgets.match("Mozilla/5.0 (compatible; bingbot/2.0)");
+        assertEquals("Bingbot", bingbot.name());
+        assertEquals(2, bingbot.crawlDelaySeconds());
+        assertEquals(CrawlerBudgets.DEFAULT_CRAWL_DELAY, CrawlerBudgets.match("SomeSpider/1.0").crawlDelaySeconds());
+        assertNull(CrawlerBudgets.match("Mozilla/5.0 (Windows NT 10.0) Firefox/130.0"));
+
+        // A minute of sitemap pages at exactly the Crawl-delay fits the budget; the next one does not
+        GcraRateLimiter limiter = new GcraRateLimiter(Duration.ofMinutes(1), 100);
+        int budget = bingbot.requestsPerMinute() * ReadCosts.SITEMAP;
+        for (int i = 0; i < bingbot.requestsPerMinute(); i++) {
+            assertTrue(limiter.tryAcquire("crawler:Bingbot|1.2.3.4", budget, ReadCosts.SITEMAP));
+        }
+        assertFalse(limiter.tryAcquire("crawler:Bingbot|1.2.3.4", budget, ReadCosts.SITEMAP));
+    }
+
+    private static MockHttpServletRequest get(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
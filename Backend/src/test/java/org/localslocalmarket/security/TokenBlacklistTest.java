@@ -0,0 +1,66 @@
+package org.localslocalmarket.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.repo.RevokedTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import io.jsonwebtoken.JwtException;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TokenBlacklistTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwt;
+    @Autowired RevokedTokenRepository revokedTokens;
+
+    @Test
+    void logoutRevokesByJtiHereAndOnOtherInstances() throws Exception {
+        String token = jwt.generate("blacklist@example.com", Map.of("uid", 1L, "role", "SELLER"));
+        String sibling = jwt.generate("blacklist@example.com", Map.of("uid", 1L, "role", "SELLER"));
+        String jti = jwt.getClaims(token).getId();
+
+        assertEquals(200, mvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                .andReturn().getResponse().getStatus());
+
+        assertThrows(JwtException.class, () -> jwt.getClaims(token));
+        assertTrue(jwt.isTokenBlacklisted(token));
+        // Only that token: other sessions of the same user keep working
+        assertEquals("blacklist@example.com", jwt.getClaims(sibling).getSubject());
+
+        // A freshly started instance learns about it from the database
+        TokenBlacklist otherInstance = new TokenBlacklist(revokedTokens, 60);
+        assertFalse(otherInstance.isRevoked(jti));
+        otherInstance.sync();
+        assertTrue(otherInstance.isRevoked(jti));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        int capacity = 5000;
+        TokenBlacklist.BloomFilter filter = new TokenBlacklist.BloomFilter(capacity);
+        for (int i = 0; i < capacity; i++) {
+            filter.add("revoked-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < capacity; i++) {
+            assertTrue(filter.mightContain("revoked-" + i));
+            if (filter.mightContain("live-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < capacity * 3 / 100, falsePositives + " false positives");
+    }
+}
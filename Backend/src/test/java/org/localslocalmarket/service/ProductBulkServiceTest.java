@@ -0,0 +1,54 @@
+package org.localslocalmarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.web.dto.ProductDtos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+@SpringBootTest
+class ProductBulkServiceTest {
+
+    @Autowired ProductBulkService bulk;
+    @Autowired ProductRepository products;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+
+    // CSV rows do not come through the shared ObjectMapper, but must be cleaned the same way
+    @Test
+    void csvImportSanitizesTextLikeJsonBodies() throws Exception {
+        User owner = new User();
+        owner.setEmail("import-" + System.nanoTime() + "@example.com");
+        owner.setPasswordHash("x");
+        owner.setName("import");
+        users.save(owner);
+        Shop shop = new Shop();
+        shop.setOwner(owner);
+        shop.setName("Import shop");
+        shop.setCategory("Test");
+        shop.setLat(0.0);
+        shop.setLng(0.0);
+        shops.save(shop);
+        String csv = "title,description,price\n"
+                + "\"<script>alert(1)</script>Widget\",\"Hand   made\u0001 mug\",9.99\n";
+
+        ProductDtos.ImportResult result = bulk.importProducts(shop,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), ProductBulkService.Format.CSV);
+
+        assertEquals(1, result.imported());
+        Product product = products.findAllActiveByShopIdWithShop(shop.getId(), PageRequest.of(0, 1)).getContent().get(0);
+        assertEquals("Widget", product.getTitle());
+        assertEquals("Hand made mug", product.getDescription());
+    }
+}
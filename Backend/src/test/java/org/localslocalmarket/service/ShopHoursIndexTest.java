@@ -0,0 +1,138 @@
+package org.localslocalmarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.repo.ShopRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ShopHoursIndexTest {
+
+    // Monday 9:30 AM - 5:15 PM
+    private static final String NINE_THIRTY_TO_FIVE_FIFTEEN = "{\"monday\": {\"open\": \"09\", \"openMinute\": \"30\","
+            + " \"openAMPM\": \"AM\", \"close\": \"05\", \"closeMinute\": \"15\", \"closeAMPM\": \"PM\", \"isOpen\": true}}";
+    private static final String NINE_TO_FIVE = "{\"monday\": {\"open\": \"09:00\", \"close\": \"17:00\"}}";
+
+    private final ShopRepository shops = mock(ShopRepository.class);
+
+    @Test
+    void answersToTheMinuteAroundPartialHours() {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 30);
+        when(shops.findHoursByIdIn(anyCollection())).thenReturn(rows(row(1L, NINE_THIRTY_TO_FIVE_FIFTEEN)));
+
+        // 9 and 17 o'clock are partial slots, 10 to 16 are full ones
+        assertFalse(index.isOpen(1L, monday(9, 29)));
+        assertTrue(index.isOpen(1L, monday(9, 30)));
+        assertTrue(index.isOpen(1L, monday(12, 0)));
+        assertTrue(index.isOpen(1L, monday(17, 14)));
+        assertFalse(index.isOpen(1L, monday(17, 15)));
+        assertFalse(index.isOpen(1L, monday(8, 0)));
+        assertFalse(index.isOpen(1L, monday(18, 0)));
+    }
+
+    @Test
+    void readsEachShopInItsOwnZone() {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 30);
+        when(shops.findHoursByIdIn(anyCollection())).thenReturn(rows(
+                row(1L, NINE_TO_FIVE),
+                new Object[]{2L, "Asia/Manila", null, NINE_TO_FIVE},
+                new Object[]{3L, null, null, null}));
+
+        // 02:00 UTC is 10:00 in Manila; shop 3 has no published hours
+        assertEquals(List.of(2L), index.filterOpen(List.of(1L, 2L, 3L), monday(2, 0)));
+        assertEquals(List.of(1L), index.filterOpen(List.of(3L, 2L, 1L), monday(12, 0)));
+    }
+
+    @Test
+    void writesReplaceTheSlotsOfTheOldHours() {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 30);
+        index.onShopChanged(shop(1L, NINE_TO_FIVE));
+        assertTrue(index.isOpen(1L, monday(9, 0)));
+
+        index.onShopChanged(shop(1L, NINE_THIRTY_TO_FIVE_FIFTEEN));
+        assertFalse(index.isOpen(1L, monday(9, 0)));
+        assertTrue(index.isOpen(1L, monday(17, 10)));
+
+        index.onShopRemoved(1L);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void liveEntriesAreNotReadAgain() {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 30);
+        when(shops.findHoursByIdIn(anyCollection())).thenReturn(rows(row(1L, NINE_TO_FIVE)));
+
+        index.isOpen(1L, monday(12, 0));
+        index.isOpen(1L, monday(12, 0));
+        verify(shops, times(1)).findHoursByIdIn(anyCollection());
+    }
+
+    @Test
+    void expiredEntriesAreReloaded() throws Exception {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 0);
+        when(shops.findHoursByIdIn(anyCollection()))
+                .thenReturn(rows(row(1L, NINE_TO_FIVE)))
+                .thenReturn(rows(row(1L, NINE_THIRTY_TO_FIVE_FIFTEEN)))
+                .thenReturn(rows());
+
+        assertTrue(index.isOpen(1L, monday(9, 0)));
+        Thread.sleep(2);
+        // Changed on another instance
+        assertFalse(index.isOpen(1L, monday(9, 0)));
+        Thread.sleep(2);
+        // Deleted on another instance
+        assertFalse(index.isOpen(1L, monday(12, 0)));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void aWriteDuringAReloadIsKept() throws Exception {
+        ShopHoursIndex index = new ShopHoursIndex(shops, "UTC", 0);
+        index.onShopChanged(shop(1L, NINE_TO_FIVE));
+        Thread.sleep(2);
+        // The reload reads the old row, and this instance saves new hours before it finishes
+        when(shops.findHoursByIdIn(anyCollection())).thenAnswer(invocation -> {
+            index.onShopChanged(shop(1L, NINE_THIRTY_TO_FIVE_FIFTEEN));
+            return rows(row(1L, NINE_TO_FIVE));
+        });
+
+        // The 9:30 hours written meanwhile win over the 9:00 row read before them
+        assertEquals(List.of(), index.filterOpen(List.of(1L), monday(9, 0)));
+        assertEquals(1, index.size());
+    }
+
+    private static Instant monday(int hour, int minute) {
+        // 2026-10-19 is a Monday
+        return ZonedDateTime.of(2026, 10, 19, hour, minute, 0, 0, ZoneOffset.UTC).toInstant();
+    }
+
+    private static Shop shop(Long id, String hoursJson) {
+        Shop shop = new Shop();
+        ReflectionTestUtils.setField(shop, "id", id);
+        shop.setTimeZone("UTC");
+        shop.setBusinessHoursJson(hoursJson);
+        return shop;
+    }
+
+    private static Object[] row(Long id, String hoursJson) {
+        return new Object[]{id, "UTC", null, hoursJson};
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
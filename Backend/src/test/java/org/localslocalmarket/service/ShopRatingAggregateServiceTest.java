@@ -0,0 +1,105 @@
+package org.localslocalmarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.ShopRating;
+import org.localslocalmarket.model.ShopRatingAggregate;
+import org.localslocalmarket.model.UnauthenticatedShopReview;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ShopRatingAggregateRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * The aggregate row must equal what the review tables say, including when the
+ * first reviews of a shop arrive at the same time.
+ */
+@SpringBootTest
+class ShopRatingAggregateServiceTest {
+
+    @Autowired ShopRatingAggregateService ratingAggregates;
+    @Autowired ShopRatingAggregateRepository aggregates;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+
+    @Test
+    void concurrentFirstReviewsAreEachCountedOnce() throws Exception {
+        Shop shop = shop("Rated shop");
+        int reviewers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(reviewers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < reviewers; i++) {
+                String deviceId = "device-" + i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    UnauthenticatedShopReview review = new UnauthenticatedShopReview();
+                    review.setShop(shop);
+                    review.setStars(4);
+                    review.setReviewerName("Anonymous Customer");
+                    review.setDeviceId(deviceId);
+                    review.setCreatedAt(Instant.now());
+                    return ratingAggregates.saveUnauthenticatedReview(review);
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ShopRatingAggregate aggregate = aggregates.findById(shop.getId()).orElseThrow();
+        assertEquals(reviewers, aggregate.getUnauthCount());
+        assertEquals(reviewers * 4L, aggregate.getUnauthSum());
+    }
+
+    @Test
+    void changedRatingMovesTheSumNotTheCount() {
+        Shop shop = shop("Re-rated shop");
+        ShopRating rating = new ShopRating();
+        rating.setShop(shop);
+        rating.setUser(user("rater"));
+        rating.setStars(5);
+        rating = ratingAggregates.saveAuthenticatedRating(rating, null);
+        rating.setStars(2);
+        ratingAggregates.saveAuthenticatedRating(rating, 5);
+
+        ShopRatingAggregate aggregate = aggregates.findById(shop.getId()).orElseThrow();
+        assertEquals(1, aggregate.getAuthCount());
+        assertEquals(2, aggregate.getAuthSum());
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setPasswordHash("x");
+        user.setName(name);
+        return users.save(user);
+    }
+
+    private Shop shop(String name) {
+        Shop shop = new Shop();
+        shop.setOwner(user("owner"));
+        shop.setName(name);
+        shop.setCategory("Test");
+        shop.setLat(0.0);
+        shop.setLng(0.0);
+        return shops.save(shop);
+    }
+}
@@ -0,0 +1,118 @@
+package org.localslocalmarket.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Hammers one product from many threads and checks that every unit is sold
+ * exactly once: successful decrements add up to the starting stock and the
+ * stock never goes below zero. The stock overlay must end on the same count as
+ * the database, since decrements record it while they hold the row lock.
+ *
+ *   mvn test -Dtest=StockServiceConcurrencyTest [-Dstock.threads=16 -Dstock.attempts=20 -Dstock.initial=100]
+ */
+@SpringBootTest
+class StockServiceConcurrencyTest {
+
+    @Autowired StockService stockService;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+    @Autowired ProductRepository products;
+    @Autowired ProductStockOverlay stockOverlay;
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        int threads = Integer.getInteger("stock.threads", 16);
+        int attemptsPerThread = Integer.getInteger("stock.attempts", 20);
+        int initialStock = Integer.getInteger("stock.initial", 100);
+        Long productId = createProduct(initialStock);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        StockService.DecrementResult result = stockService.decrement(productId, 1);
+                        if (result.outcome() == StockService.Outcome.DECREMENTED) {
+                            sold.incrementAndGet();
+                        } else {
+                            assertEquals(StockService.Outcome.OUT_OF_STOCK, result.outcome());
+                            assertEquals(0, result.stockCount());
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int attempts = threads * attemptsPerThread;
+        assertEquals(Math.min(initialStock, attempts), sold.get());
+        assertEquals(attempts - sold.get(), rejected.get());
+        int remaining = Math.max(0, initialStock - attempts);
+        assertEquals(remaining, products.findStockCountById(productId).orElseThrow());
+        assertEquals(remaining, stockOverlay.stockFor(List.of(productId)).get(productId));
+    }
+
+    @Test
+    void decrementLargerThanStockLeavesStockUntouched() {
+        Long productId = createProduct(3);
+
+        StockService.DecrementResult result = stockService.decrement(productId, 5);
+
+        assertEquals(StockService.Outcome.OUT_OF_STOCK, result.outcome());
+        assertEquals(3, result.stockCount());
+        assertEquals(3, products.findStockCountById(productId).orElseThrow());
+    }
+
+    private Long createProduct(int stock) {
+        User owner = new User();
+        owner.setEmail("stock-" + System.nanoTime() + "@example.com");
+        owner.setPasswordHash("x");
+        owner.setName("stock");
+        users.save(owner);
+        Shop shop = new Shop();
+        shop.setOwner(owner);
+        shop.setName("Stock shop");
+        shop.setCategory("Test");
+        shop.setLat(0.0);
+        shop.setLng(0.0);
+        shops.save(shop);
+        Product p = new Product();
+        p.setShop(shop);
+        p.setTitle("Popular item");
+        p.setPrice(new BigDecimal("1.00"));
+        p.setStockCount(stock);
+        return products.save(p).getId();
+    }
+}
@@ -0,0 +1,168 @@
+package org.localslocalmarket.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.localslocalmarket.config.SqlRequestStats;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.repository.ServiceRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Statement budget for the public listing endpoints. The budget does not grow with
+ * the number of rows listed, so a lazy association loaded per row (an N+1) fails
+ * here before it reaches production.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ListingQueryBudgetTest {
+
+    private static final int SHOPS = 6;
+    // Page query, count query and one spare; today every listing here needs one
+    private static final int MAX_STATEMENTS = 3;
+    private static final int MAX_REPEATS = 2;
+    private static final int CARD_DESCRIPTION_LENGTH = 160;
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+    @Autowired ProductRepository products;
+    @Autowired ServiceRepository services;
+    @Autowired CacheManager cacheManager;
+
+    @BeforeEach
+    void seed() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        if (shops.count() >= SHOPS) {
+            return;
+        }
+        User owner = new User();
+        owner.setEmail("budget-" + System.nanoTime() + "@example.com");
+        owner.setPasswordHash("x");
+        owner.setName("budget");
+        users.save(owner);
+        for (int i = 0; i < SHOPS; i++) {
+            Shop shop = new Shop();
+            shop.setOwner(owner);
+            shop.setName("Budget shop " + i);
+            shop.setDescription("d".repeat(500));
+            shop.setCategory("Food");
+            shop.setLat(0.0);
+            shop.setLng(0.0);
+            shops.save(shop);
+            for (int j = 0; j < 2; j++) {
+                Product product = new Product();
+                product.setShop(shop);
+                product.setTitle("Budget product " + i + "-" + j);
+                product.setPrice(BigDecimal.ONE);
+                product.setMainCategory("Food");
+                products.save(product);
+
+                Service service = new Service();
+                service.setShop(shop);
+                service.setTitle("Budget service " + i + "-" + j);
+                service.setMainCategory("Food");
+                services.save(service);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/shops/paginated",
+            "/api/shops/paginated-with-ratings",
+            "/api/products",
+            "/api/products?mainCategory=Food",
+            "/api/products/by-category/Food",
+            "/api/services/paginated",
+            "/api/services/paginated?category=Food",
+            "/api/services/category/Food/paginated",
+            "/api/services",
+            "/api/services?category=Food&status=AVAILABLE&limit=500"
+    })
+    void listingStaysWithinStatementBudget(String path) throws Exception {
+        MvcResult result = mvc.perform(get(path)).andReturn();
+        SqlRequestStats stats = (SqlRequestStats) result.getRequest().getAttribute(SqlQueryMetricsFilter.STATS_ATTRIBUTE);
+
+        assertEquals(200, result.getResponse().getStatus(), path);
+        assertNotNull(result.getResponse().getHeader("Server-Timing"), path);
+        assertTrue(stats.getStatementCount() <= MAX_STATEMENTS,
+                path + " ran " + stats.getStatementCount() + " statements");
+        assertTrue(stats.maxRepeats() <= MAX_REPEATS,
+                path + " repeated " + stats.mostRepeated());
+    }
+
+    // Cards carry only the start of the description; the query trims it, not the controller
+    @Test
+    void shopCardsTrimDescriptions() throws Exception {
+        MvcResult result = mvc.perform(get("/api/shops/paginated?size=100")).andReturn();
+        List<String> descriptions = JsonPath.read(result.getResponse().getContentAsString(), "$.content[*].description");
+
+        assertTrue(descriptions.contains("d".repeat(CARD_DESCRIPTION_LENGTH)));
+        assertTrue(descriptions.stream().allMatch(d -> d == null || d.length() <= CARD_DESCRIPTION_LENGTH));
+    }
+
+    // Both spellings normalize to the same ServiceQuery, so the second is a cache hit
+    @Test
+    void equivalentServiceListingsShareOneCacheEntry() throws Exception {
+        mvc.perform(get("/api/services/paginated?category=Food&sortDir=ASC&minPrice=1.00"));
+        MvcResult result = mvc.perform(get("/api/services/category/Food/paginated?minPrice=1&sortBy=id")).andReturn();
+        SqlRequestStats stats = (SqlRequestStats) result.getRequest().getAttribute(SqlQueryMetricsFilter.STATS_ATTRIBUTE);
+
+        assertEquals(200, result.getResponse().getStatus());
+        assertEquals(0, stats.getStatementCount());
+    }
+
+    @Test
+    void serviceCursorPagesChainWithoutOverlap() throws Exception {
+        MvcResult first = mvc.perform(get("/api/services?limit=5"))
+                .andExpect(jsonPath("$.content.length()").value(5))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andReturn();
+        Number cursor = JsonPath.read(first.getResponse().getContentAsString(), "$.nextCursor");
+        Number lastId = JsonPath.read(first.getResponse().getContentAsString(), "$.content[4].id");
+        assertEquals(lastId.longValue(), cursor.longValue());
+
+        MvcResult next = mvc.perform(get("/api/services?limit=5&cursor=" + cursor)).andReturn();
+        Number firstIdOfNext = JsonPath.read(next.getResponse().getContentAsString(), "$.content[0].id");
+        assertTrue(firstIdOfNext.longValue() > cursor.longValue());
+
+        mvc.perform(get("/api/services?limit=100000")).andExpect(jsonPath("$.limit").value(100));
+    }
+
+    // Open-in-view is off: the shop has to come from the query's fetch plan, not a lazy load
+    @Test
+    void productResponsesCarryTheirShopFromOneStatement() throws Exception {
+        Long productId = products.findAll().get(0).getId();
+        for (String path : new String[]{"/api/products/" + productId, "/api/products?q=budget"}) {
+            MvcResult result = mvc.perform(get(path))
+                    .andExpect(path.contains("?") ? jsonPath("$.content[0].shopName").isNotEmpty() : jsonPath("$.shopName").isNotEmpty())
+                    .andReturn();
+            SqlRequestStats stats = (SqlRequestStats) result.getRequest().getAttribute(SqlQueryMetricsFilter.STATS_ATTRIBUTE);
+            assertEquals(1, stats.getStatementCount(), path);
+        }
+    }
+}
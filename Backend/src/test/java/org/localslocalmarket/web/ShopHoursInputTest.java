@@ -0,0 +1,65 @@
+package org.localslocalmarket.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.security.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Unreadable openAt instants and unknown time zones are client errors (400), not 500s
+ * from the catch-all exception advices.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ShopHoursInputTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+    @Autowired JwtService jwt;
+
+    @Test
+    void unreadableOpenAtIsABadRequest() throws Exception {
+        assertEquals(400, mvc.perform(get("/api/shops").param("openAt", "tomorrow morning"))
+                .andReturn().getResponse().getStatus());
+        assertEquals(200, mvc.perform(get("/api/shops").param("openAt", "2026-10-19T09:30:00Z"))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void unknownTimeZoneOnUpdateIsABadRequest() throws Exception {
+        User owner = new User();
+        owner.setEmail("zone-owner-" + System.nanoTime() + "@example.com");
+        owner.setPasswordHash("x");
+        owner.setName("zone-owner");
+        owner = users.save(owner);
+        Shop shop = new Shop();
+        shop.setOwner(owner);
+        shop.setName("Zone shop " + System.nanoTime());
+        shop.setCategory("Test");
+        shop.setLat(0.0);
+        shop.setLng(0.0);
+        shop.setTimeZone("Asia/Manila");
+        shop = shops.save(shop);
+        String token = "Bearer " + jwt.generate(owner.getEmail(), Map.of("uid", owner.getId(), "role", owner.getRole().name()));
+
+        assertEquals(400, mvc.perform(patch("/api/shops/" + shop.getId()).header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"timeZone\":\"Mars/Olympus_Mons\"}")).andReturn().getResponse().getStatus());
+        assertEquals("Asia/Manila", shops.findById(shop.getId()).orElseThrow().getTimeZone());
+    }
+}
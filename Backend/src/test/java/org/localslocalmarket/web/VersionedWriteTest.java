@@ -0,0 +1,132 @@
+package org.localslocalmarket.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.localslocalmarket.model.Product;
+import org.localslocalmarket.model.Service;
+import org.localslocalmarket.model.Shop;
+import org.localslocalmarket.model.User;
+import org.localslocalmarket.repo.ProductRepository;
+import org.localslocalmarket.repo.ShopRepository;
+import org.localslocalmarket.repo.UserRepository;
+import org.localslocalmarket.repository.ServiceRepository;
+import org.localslocalmarket.security.JwtService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Stock and status changes are not evicted from the response caches, so they must not
+ * change the version either: a client that writes back the version it just read
+ * (possibly from a cache) after such a change must not get a 409.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class VersionedWriteTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired ShopRepository shops;
+    @Autowired ProductRepository products;
+    @Autowired ServiceRepository services;
+    @Autowired JwtService jwt;
+
+    @Test
+    void editAfterStockPatchUsesTheVersionJustRead() throws Exception {
+        User owner = owner("version-product");
+        Shop shop = shop(owner);
+        Product product = new Product();
+        product.setShop(shop);
+        product.setTitle("Versioned item");
+        product.setPrice(new BigDecimal("2.00"));
+        product.setStockCount(10);
+        product = products.save(product);
+        String path = "/api/products/" + product.getId();
+        String token = tokenFor(owner);
+
+        long read = version(mvc.perform(get(path)).andReturn());
+        assertEquals(200, status(mvc.perform(patch(path).header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"stockCount\":7,\"version\":" + read + "}")).andReturn()));
+
+        MvcResult reread = mvc.perform(get(path)).andReturn();
+        assertEquals(7, (int) JsonPath.read(reread.getResponse().getContentAsString(), "$.stockCount"));
+        assertEquals(200, status(mvc.perform(patch(path).header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Renamed item\",\"version\":" + version(reread) + "}")).andReturn()));
+    }
+
+    @Test
+    void editAfterStatusChangeUsesTheVersionJustRead() throws Exception {
+        User owner = owner("version-service");
+        Shop shop = shop(owner);
+        Service service = new Service();
+        service.setShop(shop);
+        service.setTitle("Versioned service");
+        service.setPrice(new BigDecimal("5.00"));
+        service.setMainCategory("Test");
+        service = services.save(service);
+        String listing = "/api/services/shop/" + shop.getId() + "/paginated";
+        String path = "/api/services/" + service.getId();
+        String token = tokenFor(owner);
+
+        long read = version(mvc.perform(get(listing)).andReturn(), "$.content[0].version");
+        assertEquals(200, status(mvc.perform(put(path).header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"status\":\"NOT_AVAILABLE\",\"version\":" + read + "}")).andReturn()));
+
+        MvcResult reread = mvc.perform(get(listing)).andReturn();
+        assertEquals("NOT_AVAILABLE", JsonPath.read(reread.getResponse().getContentAsString(), "$.content[0].status"));
+        assertEquals(200, status(mvc.perform(put(path).header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Renamed service\",\"version\":" + version(reread, "$.content[0].version") + "}"))
+                .andReturn()));
+    }
+
+    private User owner(String name) {
+        User user = new User();
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setPasswordHash("x");
+        user.setName(name);
+        return users.save(user);
+    }
+
+    private Shop shop(User owner) {
+        Shop shop = new Shop();
+        shop.setOwner(owner);
+        shop.setName("Versioned shop " + System.nanoTime());
+        shop.setCategory("Test");
+        shop.setLat(0.0);
+        shop.setLng(0.0);
+        return shops.save(shop);
+    }
+
+    private String tokenFor(User user) {
+        return "Bearer " + jwt.generate(user.getEmail(), Map.of("uid", user.getId(), "role", user.getRole().name()));
+    }
+
+    private static long version(MvcResult result) throws Exception {
+        return version(result, "$.version");
+    }
+
+    private static long version(MvcResult result, String path) throws Exception {
+        return ((Number) JsonPath.read(result.getResponse().getContentAsString(), path)).longValue();
+    }
+
+    private static int status(MvcResult result) {
+        return result.getResponse().getStatus();
+    }
+}
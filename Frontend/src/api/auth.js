@@ -26,6 +26,14 @@ export async function registerRequest({ name, email, password }) {
   return response.json()
 }
 
+// Revokes the token server-side so a copy of it stops working too
+export async function logoutRequest(token) {
+  await fetch(`${API_BASE}/auth/logout`, {
+    method: 'POST',
+    headers: { 'Authorization': `Bearer ${token}` }
+  })
+}
+
 export async function getProfileRequest(token) {
   const response = await fetch(`${API_BASE}/users/profile`, {
     method: 'GET',
@@ -219,7 +219,7 @@ export const updateServiceStatus = async (serviceId, status, token) => {
 // ========== LEGACY NON-PAGINATED METHODS (for backward compatibility) ==========
 
 /**
- * Fetch all services (non-paginated)
+ * Fetch services (first cursor page, up to 100; the backend no longer returns unbounded lists)
  */
 export const fetchAllServices = async (params = {}) => {
   const { status, category, shopId } = params
@@ -227,35 +227,35 @@ export const fetchAllServices = async (params = {}) => {
   
   if (status) queryParams.append('status', status)
   if (category) queryParams.append('category', category)
-  if (shopId) queryParams.append('shopId', shopId)
+  queryParams.append('limit', '100')
 
-  const url = `${API_BASE}/services${queryParams.toString() ? `?${queryParams}` : ''}`
+  const url = shopId
+    ? `${API_BASE}/services/shop/${shopId}?${queryParams}`
+    : `${API_BASE}/services?${queryParams}`
   const response = await fetch(url)
-  return handleResponse(response)
+  const data = await handleResponse(response)
+  return Array.isArray(data) ? data : (data?.content ?? [])
 }
 
 /**
- * Fetch services by shop ID (non-paginated)
+ * Fetch services by shop ID (first cursor page, up to 100)
  */
 export const fetchServicesByShopIdLegacy = async (shopId, status = null) => {
   const queryParams = new URLSearchParams()
   if (status) queryParams.append('status', status)
+  queryParams.append('limit', '100')
   
-  const url = `${API_BASE}/services/shop/${shopId}${queryParams.toString() ? `?${queryParams}` : ''}`
+  const url = `${API_BASE}/services/shop/${shopId}?${queryParams}`
   const response = await fetch(url)
-  return handleResponse(response)
+  const data = await handleResponse(response)
+  return Array.isArray(data) ? data : (data?.content ?? [])
 }
 
 /**
- * Fetch services by category (non-paginated)
+ * Fetch services by category (first cursor page, up to 100)
  */
 export const fetchServicesByCategoryLegacy = async (category, status = null) => {
-  const queryParams = new URLSearchParams()
-  if (status) queryParams.append('status', status)
-  
-  const url = `${API_BASE}/services/category/${encodeURIComponent(category)}${queryParams.toString() ? `?${queryParams}` : ''}`
-  const response = await fetch(url)
-  return handleResponse(response)
+  return fetchAllServices({ category, status })
 }
 
 // ========== UTILITY FUNCTIONS ==========
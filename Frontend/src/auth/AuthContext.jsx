@@ -1,5 +1,5 @@
 import { createContext, useContext, useEffect, useMemo, useState } from 'react'
-import { loginRequest, registerRequest, getProfileRequest, updateProfileRequest, changePasswordRequest, googleLoginRequest, getEmailVerificationStatus, sendEmailVerification, verifyEmailCode } from '../api/auth.js'
+import { loginRequest, logoutRequest, registerRequest, getProfileRequest, updateProfileRequest, changePasswordRequest, googleLoginRequest, getEmailVerificationStatus, sendEmailVerification, verifyEmailCode } from '../api/auth.js'
 
 const AuthContext = createContext(null)
 
@@ -110,6 +110,8 @@ export function AuthProvider({ children }) {
   }
 
   const logout = () => {
+    // Best effort: the local sign-out below happens either way
+    if (token) logoutRequest(token).catch(() => {})
     localStorage.removeItem('auth_token')
     localStorage.removeItem('auth_user')
     setToken(null)